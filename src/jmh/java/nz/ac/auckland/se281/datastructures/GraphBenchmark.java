@@ -0,0 +1,246 @@
+package nz.ac.auckland.se281.datastructures;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of building a {@link Graph} and every query the calculator runs on it, across graphs
+ * of every {@link GraphGenerator} shape from a thousand to ten million edges.
+ *
+ * <p>Every property is only computed once per graph, so the property benchmarks each run on a
+ * fresh copy of the graph that has computed nothing yet. The copies are made before each iteration,
+ * so each of those benchmarks runs a fixed batch of calls per iteration and is timed as a single
+ * shot. At the smallest sizes a whole batch takes only microseconds, so those scores carry more
+ * timer noise than the rest.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx6g"})
+public class GraphBenchmark {
+
+  private static final long SEED = 281;
+
+  /** The generated graph, shared by every benchmark thread. */
+  @State(Scope.Benchmark)
+  public static class Input {
+
+    @Param({"ERDOS_RENYI", "POWER_LAW", "CHAIN", "GRID", "CLIQUES", "NEAR_TRANSITIVE_DAG"})
+    public String shape;
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int edges;
+
+    String[] labels;
+    int[] sources;
+    int[] targets;
+    Graph<String> graph;
+    String vertex;
+
+    /** Generates the graph once for every combination of parameters. */
+    @Setup(Level.Trial)
+    public void generate() {
+      GraphGenerator.Shape kind = GraphGenerator.Shape.valueOf(shape);
+      GraphGenerator generator = new GraphGenerator(kind, vertexCount(kind, edges), edges, SEED);
+      labels = new String[generator.vertexCount()];
+      for (int id = 0; id < labels.length; id++) {
+        labels[id] = String.valueOf(id);
+      }
+      // keeping the edges as ids, so building the graph can be measured on its own
+      IntList from = new IntList();
+      IntList to = new IntList();
+      generator.generate(
+          (source, destination) -> {
+            from.add(source);
+            to.add(destination);
+          },
+          isolated -> {});
+      sources = from.toArray();
+      targets = to.toArray();
+      graph = build();
+      vertex = labels[labels.length / 2];
+    }
+
+    /**
+     * Builds the graph, interning every label the way a loader does.
+     *
+     * @return the graph.
+     */
+    Graph<String> build() {
+      GraphBuilder<String> builder = new GraphBuilder<>();
+      for (int i = 0; i < sources.length; i++) {
+        builder.addEdge(labels[sources[i]], labels[targets[i]]);
+      }
+      return builder.build();
+    }
+  }
+
+  /** Copies of the generated graph that have not computed any of their properties. */
+  @State(Scope.Thread)
+  public static class Fresh {
+
+    /** The number of calls in each iteration of a benchmark that uses a fresh graph. */
+    static final int BATCH = 20;
+
+    private final List<Graph<String>> copies = new ArrayList<>();
+    private int next;
+
+    /**
+     * Copies the generated graph once for every call in the next iteration, sharing its rows.
+     * Copying before each iteration rather than each call keeps the setup out of the timings.
+     *
+     * @param input the generated graph.
+     */
+    @Setup(Level.Iteration)
+    public void copy(Input input) {
+      copies.clear();
+      for (int i = 0; i < BATCH; i++) {
+        copies.add(new Graph<String>(input.graph));
+      }
+      next = 0;
+    }
+
+    /**
+     * Gets the next copy that has not been used yet.
+     *
+     * @return a graph that has computed nothing.
+     */
+    Graph<String> graph() {
+      return copies.get(next++);
+    }
+  }
+
+  @Benchmark
+  public Graph<String> construct(Input input) {
+    return input.build();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @Warmup(iterations = 3, batchSize = Fresh.BATCH)
+  @Measurement(iterations = 5, batchSize = Fresh.BATCH)
+  public Set<String> getRoots(Fresh fresh) {
+    return fresh.graph().getRoots();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @Warmup(iterations = 3, batchSize = Fresh.BATCH)
+  @Measurement(iterations = 5, batchSize = Fresh.BATCH)
+  public boolean isReflexive(Fresh fresh) {
+    return fresh.graph().isReflexive();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @Warmup(iterations = 3, batchSize = Fresh.BATCH)
+  @Measurement(iterations = 5, batchSize = Fresh.BATCH)
+  public boolean isSymmetric(Fresh fresh) {
+    return fresh.graph().isSymmetric();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @Warmup(iterations = 3, batchSize = Fresh.BATCH)
+  @Measurement(iterations = 5, batchSize = Fresh.BATCH)
+  public boolean isTransitive(Fresh fresh) {
+    return fresh.graph().isTransitive();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @Warmup(iterations = 3, batchSize = Fresh.BATCH)
+  @Measurement(iterations = 5, batchSize = Fresh.BATCH)
+  public boolean isAntiSymmetric(Fresh fresh) {
+    return fresh.graph().isAntiSymmetric();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @Warmup(iterations = 3, batchSize = Fresh.BATCH)
+  @Measurement(iterations = 5, batchSize = Fresh.BATCH)
+  public boolean isEquivalence(Fresh fresh) {
+    return fresh.graph().isEquivalence();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @Warmup(iterations = 3, batchSize = Fresh.BATCH)
+  @Measurement(iterations = 5, batchSize = Fresh.BATCH)
+  public Set<String> getEquivalenceClass(Fresh fresh, Input input) {
+    return fresh.graph().getEquivalenceClass(input.vertex);
+  }
+
+  @Benchmark
+  public List<String> iterativeBreadthFirstSearch(Input input) {
+    return input.graph.iterativeBreadthFirstSearch();
+  }
+
+  @Benchmark
+  public List<String> iterativeDepthFirstSearch(Input input) {
+    return input.graph.iterativeDepthFirstSearch();
+  }
+
+  @Benchmark
+  public List<String> recursiveBreadthFirstSearch(Input input) {
+    return input.graph.recursiveBreadthFirstSearch();
+  }
+
+  @Benchmark
+  public List<String> recursiveDepthFirstSearch(Input input) {
+    return input.graph.recursiveDepthFirstSearch();
+  }
+
+  /**
+   * Picks a number of verticies that suits the shape for the number of edges, eight edges per
+   * vertex unless the shape fixes its own.
+   *
+   * @param shape the shape of the graph.
+   * @param edges the number of edges.
+   * @return the number of verticies.
+   */
+  private static int vertexCount(GraphGenerator.Shape shape, int edges) {
+    switch (shape) {
+      case CHAIN:
+        return edges + 1;
+      case GRID:
+        return Math.max(1, edges / 2);
+      default:
+        return Math.max(2, edges / 8);
+    }
+  }
+
+  /** A growable list of ints, so collecting millions of edges does not box them. */
+  private static final class IntList {
+
+    private int[] values = new int[16];
+    private int size;
+
+    void add(int value) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = value;
+    }
+
+    int[] toArray() {
+      return Arrays.copyOf(values, size);
+    }
+  }
+}
@@ -0,0 +1,95 @@
+package nz.ac.auckland.se281;
+
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * A graph being loaded on a background thread, so the command line can keep using the graph that
+ * is already open until the new one is ready.
+ */
+class BackgroundLoad {
+  private final String filename;
+
+  private final LoadProgress progress = new LoadProgress();
+
+  private final Future<GraphCalculator> result;
+
+  /**
+   * Starts loading a graph in the background.
+   *
+   * @param executor The executor to load the graph on.
+   * @param cache The cache to look the graph up in, and to add it to once it is loaded.
+   * @param filename The name of the test case to load.
+   */
+  BackgroundLoad(final ExecutorService executor, final GraphCache cache, final String filename) {
+    this.filename = filename;
+    this.result =
+        executor.submit(
+            () ->
+                cache.open(
+                    GraphCalculator.resolve(filename),
+                    () -> new GraphCalculator(filename, progress)));
+  }
+
+  /**
+   * Gets the name of the test case being loaded.
+   *
+   * @return The file name.
+   */
+  String getFilename() {
+    return filename;
+  }
+
+  /**
+   * Gets how far the load has got.
+   *
+   * @return The progress.
+   */
+  LoadProgress getProgress() {
+    return progress;
+  }
+
+  /**
+   * Checks if the load has finished, whether or not it succeeded.
+   *
+   * @return If the load has finished.
+   */
+  boolean isDone() {
+    return result.isDone();
+  }
+
+  /** Stops the load. The loaded graph, if any, is thrown away. */
+  void cancel() {
+    progress.cancel();
+    result.cancel(true);
+  }
+
+  /**
+   * Gets the loaded graph, waiting for the load to finish if it has not already.
+   *
+   * @return The graph calculator.
+   * @throws IOException If the graph could not be loaded.
+   * @throws CancellationException If the load was cancelled.
+   */
+  GraphCalculator get() throws IOException {
+    try {
+      return result.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CancellationException("interrupted while waiting for the load");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+
+      throw new IOException(e.getCause());
+    }
+  }
+}
@@ -7,7 +7,19 @@ package nz.ac.auckland.se281;
  */
 public enum Command {
   OPEN_FILE(1, "Open the file <FILENAME>"),
+  OPEN_FILE_ASYNC(1, "Open the file <FILENAME> in the background"),
+  LOAD_STATUS(0, "Show the progress of the background load"),
+  CANCEL_LOAD(0, "Cancel the background load"),
+  SAVE_SNAPSHOT(1, "Save the current loaded graph to the binary snapshot <FILENAME>"),
+  OPEN_SNAPSHOT(1, "Open the binary snapshot <FILENAME>"),
   INFO(0, "Print information about the current loaded file"),
+  SET_OUTPUT(1, "Write results to the file <FILENAME>, or to the console if it is -"),
+  ANALYZE_ALL(1, "Check every property of every graph in the test case folder <DIRECTORY>"),
+  GENERATE(
+      4,
+      1,
+      "Generate a <SHAPE> graph of <VERTICES> vertices and about <EDGES> edges from <SEED>, and"
+          + " open it or write it to [FILENAME]"),
 
   LIST_VERTICIES_EDGES(0, "List the set of vertices and edges"),
   LIST_ROOT_VERTICIES(0, "List the set of root vertices"),
@@ -18,20 +30,31 @@ public enum Command {
   CHECK_ANTISYMMETRY(0, "Check anti-symmetry of the graph"),
   CHECK_EQUIVALENCE(0, "Check equivalence of the graph"),
   COMPUTE_EQUIVALENCE(1, "Compute equivalence class for a vertex in loaded file <VERTEX>"),
+  LIST_EQUIVALENCE_CLASSES(0, "List every equivalence class of the current loaded file"),
 
   GRAPH_SEARCH_IBFS(
-      0, "Perform a breadth-first search on the current loaded file, and display the BFS order"),
+      0,
+      1,
+      "Perform a breadth-first search on the current loaded file, and display the BFS order, or"
+          + " only its first [LIMIT] vertices"),
   GRAPH_SEARCH_IDFS(
-      0, "Perform a depth-first search on the current loaded file, and display the DFS order"),
+      0,
+      1,
+      "Perform a depth-first search on the current loaded file, and display the DFS order, or"
+          + " only its first [LIMIT] vertices"),
 
   GRAPH_SEARCH_RBFS(
       0,
+      1,
       "Perform a recursive breadth-first search on the current loaded file, and display the BFS"
-          + " order"),
+          + " order, or only its first [LIMIT] vertices"),
   GRAPH_SEARCH_RDFS(
       0,
+      1,
       "Perform a recursive depth-first search on the current loaded file, and display the DFS"
-          + " order"),
+          + " order, or only its first [LIMIT] vertices"),
+
+  METRICS(0, "Print the median and 99th percentile time of each command, if metrics are on"),
 
   HELP(0, "Print usage"),
   EXIT(0, "Exit the application");
@@ -40,6 +63,8 @@ public enum Command {
 
   private final int numArgs;
 
+  private final int numOptionalArgs;
+
   private final String message;
 
   /**
@@ -49,7 +74,19 @@ public enum Command {
    * @param message The help message for the command.
    */
   private Command(final int numArgs, final String message) {
+    this(numArgs, 0, message);
+  }
+
+  /**
+   * Create a new command that takes optional arguments after its required ones.
+   *
+   * @param numArgs The number of arguments the command requires.
+   * @param numOptionalArgs The number of extra arguments the command can also take.
+   * @param message The help message for the command.
+   */
+  private Command(final int numArgs, final int numOptionalArgs, final String message) {
     this.numArgs = numArgs;
+    this.numOptionalArgs = numOptionalArgs;
     this.message = message;
   }
 
@@ -62,6 +99,15 @@ public enum Command {
     return numArgs;
   }
 
+  /**
+   * Get the number of optional arguments the command can take after its required ones.
+   *
+   * @return The number of optional arguments.
+   */
+  public int getNumOptionalArgs() {
+    return numOptionalArgs;
+  }
+
   /**
    * Get the help message and required arguments for the command.
    *
@@ -0,0 +1,284 @@
+package nz.ac.auckland.se281;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import nz.ac.auckland.se281.datastructures.Graph;
+
+/**
+ * Loads every graph in a directory and checks all of its properties, writing a table with a row
+ * for each file.
+ *
+ * <p>Files are loaded and analysed on a fixed pool with a thread per processor. Each file reserves
+ * an estimate of the memory its graph takes out of a budget before it is loaded, and gives it back
+ * once it is analysed, so large files wait for room instead of all being held at once. Rows are
+ * written in file name order as soon as each file and every file before it are done.
+ */
+class DirectoryAnalyzer {
+  // Parsing and building a graph peaks at a few times the size of its file.
+  private static final int BYTES_PER_FILE_BYTE = 6;
+
+  private static final String ROW_FORMAT =
+      "%s  %8s  %10s  %8s  %-9s  %-9s  %-10s  %-13s  %-11s  %7s  %10s";
+
+  private final Path directory;
+
+  private final Semaphore memory;
+
+  private final int budgetKilobytes;
+
+  private int fileCount;
+
+  private int failedCount;
+
+  /**
+   * Creates a new directory analyzer.
+   *
+   * @param directory The directory in the test case folder to analyse.
+   * @param budget The most memory, in bytes, the graphs being analysed should take up at once.
+   */
+  DirectoryAnalyzer(final Path directory, final long budget) {
+    this.directory = directory;
+
+    // Semaphores count in ints, so the budget is kept in kilobytes.
+    this.budgetKilobytes = (int) Math.max(1, Math.min(Integer.MAX_VALUE, budget >> 10));
+    this.memory = new Semaphore(budgetKilobytes);
+  }
+
+  /**
+   * Analyses every file in the directory, writing the table to the given writer.
+   *
+   * @param out Where to write the table.
+   * @throws FileNotFoundException If the directory does not exist.
+   * @throws IOException If the directory could not be listed.
+   */
+  void analyze(final ResultWriter out) throws IOException {
+    final Path folder = GraphCalculator.resolve(directory.toString());
+
+    if (!Files.isDirectory(folder)) {
+      throw new FileNotFoundException(directory.toString());
+    }
+
+    final List<Path> files;
+
+    try (Stream<Path> listing = Files.list(folder)) {
+      files = listing.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+    }
+
+    fileCount = files.size();
+    failedCount = 0;
+
+    int width = "FILE".length();
+
+    for (final Path file : files) {
+      width = Math.max(width, file.getFileName().toString().length());
+    }
+
+    out.println(
+        String.format(
+            ROW_FORMAT,
+            pad("FILE", width),
+            "VERTICES",
+            "EDGES",
+            "ROOTS",
+            "REFLEXIVE",
+            "SYMMETRIC",
+            "TRANSITIVE",
+            "ANTISYMMETRIC",
+            "EQUIVALENCE",
+            "LOAD_MS",
+            "ANALYSE_MS"));
+
+    if (files.isEmpty()) {
+      return;
+    }
+
+    final ExecutorService executor =
+        Executors.newFixedThreadPool(
+            Math.min(files.size(), Runtime.getRuntime().availableProcessors()),
+            task -> {
+              final Thread thread = new Thread(task, "graph-analyzer");
+              thread.setDaemon(true);
+              return thread;
+            });
+
+    try {
+      final List<Future<Row>> rows = new ArrayList<>();
+      final int nameWidth = width;
+
+      for (final Path file : files) {
+        rows.add(executor.submit(() -> analyzeFile(file, nameWidth)));
+      }
+
+      for (final Future<Row> future : rows) {
+        final Row row = future.get();
+
+        if (row.failed) {
+          failedCount++;
+        }
+
+        // Flush each row, so a long report shows its progress.
+        out.println(row.text);
+        out.flush();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("A file could not be analysed", e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Gets the number of files found by the last analysis.
+   *
+   * @return The number of files.
+   */
+  int getFileCount() {
+    return fileCount;
+  }
+
+  /**
+   * Gets the number of files the last analysis could not load or check.
+   *
+   * @return The number of files.
+   */
+  int getFailedCount() {
+    return failedCount;
+  }
+
+  /**
+   * Loads one file and checks every property of its graph, once there is room for it in the
+   * memory budget. A file that fails to load or to be checked gets an error row, so it does not
+   * stop the rest of the directory.
+   *
+   * @param file The file to analyse.
+   * @param width The width of the file name column.
+   * @return The row of the table for the file.
+   * @throws InterruptedException If interrupted while waiting for room in the budget.
+   */
+  private Row analyzeFile(final Path file, final int width) throws InterruptedException {
+    final String name = file.getFileName().toString();
+
+    // A file bigger than the whole budget still runs, just on its own.
+    final int reserved =
+        (int) Math.min(budgetKilobytes, Math.max(1, (sizeOf(file) * BYTES_PER_FILE_BYTE) >> 10));
+
+    memory.acquire(reserved);
+
+    try {
+      return analyzeGraph(name, width);
+    } catch (IOException e) {
+      return new Row(pad(name, width) + "  error (" + e.getMessage() + ")", true);
+    } catch (RuntimeException e) {
+      // A bug or a graph too strange for one of the checks only fails the row for its file.
+      final String message = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+      return new Row(pad(name, width) + "  error (" + message + ")", true);
+    } finally {
+      memory.release(reserved);
+    }
+  }
+
+  /**
+   * Loads one file and checks every property of its graph.
+   *
+   * @param name The name of the file in the directory.
+   * @param width The width of the file name column.
+   * @return The row of the table for the file.
+   * @throws IOException If the file could not be loaded.
+   */
+  private Row analyzeGraph(final String name, final int width) throws IOException {
+    final long start = System.nanoTime();
+    final GraphCalculator calculator = new GraphCalculator(directory.resolve(name).toString());
+    final long loaded = System.nanoTime();
+    final Graph<String> graph = calculator.getGraph();
+    final int roots = graph.getRoots().size();
+    final boolean reflexive = graph.isReflexive();
+    final boolean symmetric = graph.isSymmetric();
+    final boolean transitive = graph.isTransitive();
+    final boolean antiSymmetric = graph.isAntiSymmetric();
+    final boolean equivalence = graph.isEquivalence();
+    final long analysed = System.nanoTime();
+
+    final String text =
+        String.format(
+            ROW_FORMAT,
+            pad(name, width),
+            graph.vertexCount(),
+            graph.edgeCount(),
+            roots,
+            yesNo(reflexive),
+            yesNo(symmetric),
+            yesNo(transitive),
+            yesNo(antiSymmetric),
+            yesNo(equivalence),
+            (loaded - start) / 1_000_000,
+            (analysed - loaded) / 1_000_000);
+
+    return new Row(text, false);
+  }
+
+  /**
+   * Gets the size of a file, or zero if it cannot be read, leaving the load to report the error.
+   *
+   * @param file The file.
+   * @return The size in bytes.
+   */
+  private static long sizeOf(final Path file) {
+    try {
+      return Files.size(file);
+    } catch (IOException e) {
+      return 0;
+    }
+  }
+
+  /**
+   * Pads a file name with spaces to the width of its column.
+   *
+   * @param name The file name.
+   * @param width The width of the column.
+   * @return The padded name.
+   */
+  private static String pad(final String name, final int width) {
+    return name + " ".repeat(width - name.length());
+  }
+
+  /**
+   * Gets how a property is shown in the table.
+   *
+   * @param isPropertyTrue If the property is observed.
+   * @return The cell text.
+   */
+  private static String yesNo(final boolean isPropertyTrue) {
+    return isPropertyTrue ? "yes" : "no";
+  }
+
+  /** A row of the table, and if it reports a file that could not be loaded or checked. */
+  private static final class Row {
+    private final String text;
+
+    private final boolean failed;
+
+    /**
+     * Creates a new row.
+     *
+     * @param text The text of the row.
+     * @param failed If the file could not be loaded or checked.
+     */
+    private Row(final String text, final boolean failed) {
+      this.text = text;
+      this.failed = failed;
+    }
+  }
+}
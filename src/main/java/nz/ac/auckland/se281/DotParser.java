@@ -0,0 +1,560 @@
+package nz.ac.auckland.se281;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import nz.ac.auckland.se281.datastructures.GraphBuilder;
+
+/**
+ * A single pass parser for the subset of the DOT language used by the graph files.
+ *
+ * <p>It reads the file through one reusable character buffer and feeds every vertex and edge
+ * straight into a {@link GraphBuilder}, without building a syntax tree or attribute maps first.
+ * The supported subset is:
+ *
+ * <ul>
+ *   <li>{@code //}, {@code /* *}{@code /} and {@code #} comments;
+ *   <li>an optional {@code strict}, then {@code digraph} or {@code graph}, an optional name, and a
+ *       body in braces;
+ *   <li>edge statements such as {@code a -> b;} or chains such as {@code a -> b -> c};
+ *   <li>bare node statements such as {@code a;};
+ *   <li>attribute lists, {@code node}/{@code edge}/{@code graph} attribute statements and
+ *       {@code name = value} statements, which are all skipped;
+ *   <li>subgraphs, whose statements are read as part of the graph.
+ * </ul>
+ *
+ * <p>Semicolons between statements are optional. Vertex labels are kept exactly as written,
+ * including the quotes around quoted labels.
+ */
+class DotParser {
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private enum Token {
+    ID,
+    EDGE_OP,
+    OPEN_BRACE,
+    CLOSE_BRACE,
+    OPEN_BRACKET,
+    CLOSE_BRACKET,
+    SEMICOLON,
+    COMMA,
+    EQUALS,
+    COLON,
+    EOF
+  }
+
+  private final Reader reader;
+
+  private final GraphBuilder<String> builder;
+
+  private final LabelTable labels;
+
+  private char[] buffer = new char[BUFFER_SIZE];
+
+  private int position;
+
+  private int limit;
+
+  private boolean endOfInput;
+
+  private int line = 1;
+
+  private Token token;
+
+  private int tokenStart;
+
+  private int tokenLength;
+
+  private int previousStart;
+
+  private int previousLength;
+
+  private boolean pushedBack;
+
+  /**
+   * Creates a new parser that reads a DOT graph into a builder.
+   *
+   * @param reader The reader to parse the graph from. It is not closed by the parser.
+   * @param builder The builder to add every vertex and edge to.
+   */
+  DotParser(final Reader reader, final GraphBuilder<String> builder) {
+    this.reader = reader;
+    this.builder = builder;
+    this.labels = new LabelTable(builder);
+  }
+
+  /**
+   * Parses the whole graph.
+   *
+   * @throws IOException If the graph could not be read, or is not valid DOT.
+   */
+  void parse() throws IOException {
+    next();
+
+    if (isKeyword("strict")) {
+      next();
+    }
+
+    if (!isKeyword("digraph") && !isKeyword("graph")) {
+      throw error("expected 'digraph' or 'graph'");
+    }
+
+    next();
+
+    // The graph name is optional.
+    if (token == Token.ID) {
+      next();
+    }
+
+    expect(Token.OPEN_BRACE);
+    parseStatements();
+
+    next();
+    if (token != Token.EOF) {
+      throw error("unexpected text after the end of the graph");
+    }
+  }
+
+  /**
+   * Parses statements up to and including the brace that closes the current block.
+   *
+   * @throws IOException If the statements could not be read, or are not valid DOT.
+   */
+  private void parseStatements() throws IOException {
+    while (true) {
+      next();
+
+      switch (token) {
+        case CLOSE_BRACE:
+          return;
+        case SEMICOLON:
+          break;
+        case OPEN_BRACE:
+          // An anonymous subgraph.
+          parseStatements();
+          break;
+        case ID:
+          parseStatement();
+          break;
+        case EOF:
+          throw error("expected '}' before the end of the file");
+        default:
+          throw error("expected a statement");
+      }
+    }
+  }
+
+  /**
+   * Parses a statement that starts with the current identifier.
+   *
+   * @throws IOException If the statement could not be read, or is not valid DOT.
+   */
+  private void parseStatement() throws IOException {
+    if (isKeyword("node") || isKeyword("edge") || isKeyword("graph")) {
+      next();
+      expect(Token.OPEN_BRACKET);
+      skipAttributes();
+      return;
+    }
+
+    if (isKeyword("subgraph")) {
+      next();
+
+      if (token == Token.ID) {
+        next();
+      }
+
+      expect(Token.OPEN_BRACE);
+      parseStatements();
+      return;
+    }
+
+    // The identifier is kept in the buffer until we know whether it is a vertex.
+    next();
+
+    if (token == Token.EQUALS) {
+      // A graph attribute, such as rankdir = LR.
+      next();
+      expect(Token.ID);
+      return;
+    }
+
+    int source = labels.intern(buffer, previousStart, previousLength);
+    skipPort();
+
+    while (token == Token.EDGE_OP) {
+      next();
+
+      if (token != Token.ID) {
+        throw error("expected a vertex after the edge operator");
+      }
+
+      final int destination = labels.intern(buffer, tokenStart, tokenLength);
+      builder.addEdge(source, destination);
+      source = destination;
+
+      next();
+      skipPort();
+    }
+
+    if (token == Token.OPEN_BRACKET) {
+      skipAttributes();
+    } else {
+      pushBack();
+    }
+  }
+
+  /**
+   * Skips a port, such as {@code a:n}, after a vertex if there is one.
+   *
+   * @throws IOException If the port could not be read.
+   */
+  private void skipPort() throws IOException {
+    while (token == Token.COLON) {
+      next();
+      expect(Token.ID);
+      next();
+    }
+  }
+
+  /**
+   * Skips the contents of an attribute list up to and including the closing bracket.
+   *
+   * @throws IOException If the attribute list could not be read.
+   */
+  private void skipAttributes() throws IOException {
+    while (true) {
+      next();
+
+      if (token == Token.CLOSE_BRACKET) {
+        // Attribute lists may follow each other, as in [a=1][b=2].
+        next();
+
+        if (token != Token.OPEN_BRACKET) {
+          pushBack();
+          return;
+        }
+      } else if (token == Token.EOF) {
+        throw error("unterminated attribute list");
+      }
+    }
+  }
+
+  /**
+   * Checks that the current token is of the expected kind.
+   *
+   * @param expected The expected kind of token.
+   * @throws IOException If the current token is of a different kind.
+   */
+  private void expect(final Token expected) throws IOException {
+    if (token != expected) {
+      throw error("expected " + expected.toString().toLowerCase().replace('_', ' '));
+    }
+  }
+
+  /**
+   * Checks if the current token is the given keyword. Keywords are case-insensitive.
+   *
+   * @param keyword The keyword, in lower case.
+   * @return If the current token is the keyword.
+   */
+  private boolean isKeyword(final String keyword) {
+    if (token != Token.ID || tokenLength != keyword.length()) {
+      return false;
+    }
+
+    for (int i = 0; i < tokenLength; i++) {
+      if (Character.toLowerCase(buffer[tokenStart + i]) != keyword.charAt(i)) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /** Makes the next call to {@link #next()} return the current token again. */
+  private void pushBack() {
+    pushedBack = true;
+  }
+
+  /**
+   * Reads the next token into {@link #token}, {@link #tokenStart} and {@link #tokenLength}.
+   *
+   * @throws IOException If the input could not be read, or holds an invalid token.
+   */
+  private void next() throws IOException {
+    if (pushedBack) {
+      pushedBack = false;
+      return;
+    }
+
+    previousStart = tokenStart;
+    previousLength = tokenLength;
+
+    skipWhitespaceAndComments();
+
+    if (!ensure(1)) {
+      setToken(Token.EOF, position, 0);
+      return;
+    }
+
+    final char c = buffer[position];
+
+    switch (c) {
+      case '{':
+        single(Token.OPEN_BRACE);
+        return;
+      case '}':
+        single(Token.CLOSE_BRACE);
+        return;
+      case '[':
+        single(Token.OPEN_BRACKET);
+        return;
+      case ']':
+        single(Token.CLOSE_BRACKET);
+        return;
+      case ';':
+        single(Token.SEMICOLON);
+        return;
+      case ',':
+        single(Token.COMMA);
+        return;
+      case '=':
+        single(Token.EQUALS);
+        return;
+      case ':':
+        single(Token.COLON);
+        return;
+      case '"':
+        readQuoted();
+        return;
+      case '<':
+        readHtml();
+        return;
+      default:
+        break;
+    }
+
+    if (c == '-' && ensure(2) && (buffer[position + 1] == '>' || buffer[position + 1] == '-')) {
+      setToken(Token.EDGE_OP, position, 2);
+      position += 2;
+      return;
+    }
+
+    if (c == '-' || isIdentifierChar(c)) {
+      readIdentifier();
+      return;
+    }
+
+    throw error("unexpected character '" + c + "'");
+  }
+
+  /**
+   * Reads a one character token.
+   *
+   * @param kind The kind of token.
+   */
+  private void single(final Token kind) {
+    setToken(kind, position, 1);
+    position++;
+  }
+
+  /**
+   * Reads an identifier or numeral, which may start with a minus sign.
+   *
+   * @throws IOException If the input could not be read.
+   */
+  private void readIdentifier() throws IOException {
+    int length = 1;
+
+    while (ensure(length + 1) && isIdentifierChar(buffer[position + length])) {
+      length++;
+    }
+
+    setToken(Token.ID, position, length);
+    position += length;
+  }
+
+  /**
+   * Reads a double quoted string, keeping the quotes as part of the label.
+   *
+   * @throws IOException If the input could not be read, or the string is not terminated.
+   */
+  private void readQuoted() throws IOException {
+    int length = 1;
+
+    while (true) {
+      if (!ensure(length + 1)) {
+        throw error("unterminated quoted string");
+      }
+
+      final char c = buffer[position + length];
+      length++;
+
+      if (c == '\n') {
+        line++;
+      } else if (c == '\\' && ensure(length + 1)) {
+        // Keep the escaped character, so an escaped quote does not end the string.
+        length++;
+      } else if (c == '"') {
+        break;
+      }
+    }
+
+    setToken(Token.ID, position, length);
+    position += length;
+  }
+
+  /**
+   * Reads an HTML string, such as {@code <b>label</b>}, up to its matching closing bracket.
+   *
+   * @throws IOException If the input could not be read, or the string is not terminated.
+   */
+  private void readHtml() throws IOException {
+    int length = 1;
+    int depth = 1;
+
+    while (depth > 0) {
+      if (!ensure(length + 1)) {
+        throw error("unterminated HTML string");
+      }
+
+      final char c = buffer[position + length];
+      length++;
+
+      if (c == '<') {
+        depth++;
+      } else if (c == '>') {
+        depth--;
+      } else if (c == '\n') {
+        line++;
+      }
+    }
+
+    setToken(Token.ID, position, length);
+    position += length;
+  }
+
+  /**
+   * Skips whitespace and comments before the next token.
+   *
+   * @throws IOException If the input could not be read, or a block comment is not terminated.
+   */
+  private void skipWhitespaceAndComments() throws IOException {
+    while (ensure(1)) {
+      final char c = buffer[position];
+
+      if (c == '\n') {
+        line++;
+        position++;
+      } else if (Character.isWhitespace(c)) {
+        position++;
+      } else if (c == '#' || (c == '/' && ensure(2) && buffer[position + 1] == '/')) {
+        // A line comment, or a C preprocessor line.
+        while (ensure(1) && buffer[position] != '\n') {
+          position++;
+        }
+      } else if (c == '/' && ensure(2) && buffer[position + 1] == '*') {
+        position += 2;
+
+        while (!(ensure(2) && buffer[position] == '*' && buffer[position + 1] == '/')) {
+          if (!ensure(1)) {
+            throw error("unterminated block comment");
+          }
+
+          if (buffer[position] == '\n') {
+            line++;
+          }
+
+          position++;
+        }
+
+        position += 2;
+      } else {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Records the kind and location of the current token.
+   *
+   * @param kind The kind of token.
+   * @param start The index of the first character of the token in the buffer.
+   * @param length The number of characters in the token.
+   */
+  private void setToken(final Token kind, final int start, final int length) {
+    token = kind;
+    tokenStart = start;
+    tokenLength = length;
+  }
+
+  /**
+   * Makes sure at least the given number of characters are in the buffer after the current
+   * position, reading more of the input if needed.
+   *
+   * <p>Reading more input moves the unread characters to the start of the buffer, along with the
+   * current and previous tokens, which are still needed by the parser.
+   *
+   * @param count The number of characters needed.
+   * @return If that many characters are available, or false if the input ends first.
+   * @throws IOException If the input could not be read.
+   */
+  private boolean ensure(final int count) throws IOException {
+    while (limit - position < count) {
+      if (endOfInput) {
+        return false;
+      }
+
+      final int keep = Math.min(position, Math.min(tokenStart, previousStart));
+
+      if (keep > 0) {
+        System.arraycopy(buffer, keep, buffer, 0, limit - keep);
+        position -= keep;
+        limit -= keep;
+        tokenStart -= keep;
+        previousStart -= keep;
+      }
+
+      if (limit == buffer.length) {
+        // A single token is longer than the buffer.
+        buffer = Arrays.copyOf(buffer, buffer.length * 2);
+      }
+
+      final int read = reader.read(buffer, limit, buffer.length - limit);
+
+      if (read < 0) {
+        endOfInput = true;
+      } else {
+        limit += read;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Checks if a character can be part of an unquoted identifier or numeral.
+   *
+   * @param c The character to check.
+   * @return If the character can be part of an identifier.
+   */
+  private static boolean isIdentifierChar(final char c) {
+    return (c >= 'a' && c <= 'z')
+        || (c >= 'A' && c <= 'Z')
+        || (c >= '0' && c <= '9')
+        || c == '_'
+        || c == '.'
+        || c >= '\u0080';
+  }
+
+  /**
+   * Creates an exception describing a syntax error at the current line.
+   *
+   * @param message What was wrong.
+   * @return The exception to throw.
+   */
+  private IOException error(final String message) {
+    return new IOException("line " + line + ": " + message);
+  }
+}
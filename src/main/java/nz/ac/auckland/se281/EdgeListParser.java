@@ -0,0 +1,443 @@
+package nz.ac.auckland.se281;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.regex.Pattern;
+import nz.ac.auckland.se281.datastructures.GraphBuilder;
+
+/**
+ * A parallel parser for plain edge lists, with one {@code source destination} or {@code
+ * source,destination} pair per line.
+ *
+ * <p>The file is split into chunks on line boundaries, and every chunk is mapped and parsed on the
+ * common fork-join pool into its own label table and int buffer of edges. The chunks are then
+ * merged into a {@link GraphBuilder} in file order, so the graph is the same as if the file had
+ * been read from start to end.
+ *
+ * <p>Fields are separated by commas, spaces or tabs. A line with a single field adds a vertex with
+ * no edges. Blank lines, and lines starting with {@code #} or {@code %}, are skipped.
+ */
+class EdgeListParser {
+  private static final long CHUNK_SIZE = 16 << 20;
+
+  private static final int SNIFF_SIZE = 1 << 12;
+
+  // The start of a DOT graph: [strict] (graph | digraph) [ID] '{', where the ID is a name, a
+  // number, a quoted string or an HTML string.
+  private static final Pattern DOT_HEADER =
+      Pattern.compile(
+          "(?:strict\\s+)?(?:di)?graph"
+              + "(?:\\s+[\\w\\x80-\\uffff.-]+|\\s*\"(?:[^\"\\\\]|\\\\.)*\"|\\s*<[^{]*>)?"
+              + "\\s*\\{",
+          Pattern.CASE_INSENSITIVE);
+
+  private final Path file;
+
+  private final GraphBuilder<String> builder;
+
+  private final LoadProgress progress;
+
+  /**
+   * Creates a new parser that reads an edge list into a builder.
+   *
+   * @param file The file to parse the graph from.
+   * @param builder The builder to add every vertex and edge to.
+   * @param progress The progress to report each merged chunk to.
+   */
+  EdgeListParser(final Path file, final GraphBuilder<String> builder, final LoadProgress progress) {
+    this.file = file;
+    this.builder = builder;
+    this.progress = progress;
+  }
+
+  /**
+   * Checks if a file looks like an edge list rather than DOT, by looking for a DOT graph header
+   * after any comments.
+   *
+   * @param file The file to check.
+   * @return If the file is not a DOT graph.
+   * @throws IOException If the file could not be read.
+   */
+  static boolean isEdgeList(final Path file) throws IOException {
+    final ByteBuffer head = ByteBuffer.allocate(SNIFF_SIZE);
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      while (head.hasRemaining() && channel.read(head) != -1) {
+        // Keep reading until the sniff buffer is full or the file ends.
+      }
+    }
+
+    final String text = new String(head.array(), 0, head.position(), StandardCharsets.UTF_8);
+    int i = 0;
+
+    while (i < text.length()) {
+      final char c = text.charAt(i);
+
+      if (Character.isWhitespace(c)) {
+        i++;
+      } else if (c == '#' || c == '%' || text.startsWith("//", i)) {
+        final int end = text.indexOf('\n', i);
+        i = end < 0 ? text.length() : end + 1;
+      } else if (text.startsWith("/*", i)) {
+        final int end = text.indexOf("*/", i + 2);
+        i = end < 0 ? text.length() : end + 2;
+      } else {
+        break;
+      }
+    }
+
+    // Match the whole header up to its brace, so an edge list whose first vertex is graph1, or
+    // even graph itself, is not mistaken for DOT.
+    return !DOT_HEADER.matcher(text).region(i, text.length()).lookingAt();
+  }
+
+  /**
+   * Parses the whole graph.
+   *
+   * @throws IOException If the graph could not be read, or is not a valid edge list.
+   * @throws java.util.concurrent.CancellationException If the load was cancelled.
+   */
+  void parse() throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final long[] bounds = chunkBounds(channel);
+      final List<Chunk> chunks = new ArrayList<>();
+
+      for (int i = 0; i + 1 < bounds.length; i++) {
+        final long length = bounds[i + 1] - bounds[i];
+        final Chunk chunk =
+            new Chunk(channel.map(FileChannel.MapMode.READ_ONLY, bounds[i], length));
+        ForkJoinPool.commonPool().execute(chunk);
+        chunks.add(chunk);
+      }
+
+      // Merge each chunk as soon as it and every chunk before it are done.
+      int linesBefore = 0;
+
+      try {
+        for (int i = 0; i < chunks.size(); i++) {
+          final Chunk chunk = chunks.get(i);
+          chunk.join();
+
+          if (chunk.errorLine > 0) {
+            throw new IOException("line " + (linesBefore + chunk.errorLine) + ": " + chunk.error);
+          }
+
+          chunk.mergeInto(builder);
+          linesBefore += chunk.lines;
+          progress.update(bounds[i + 1], builder);
+        }
+      } catch (IOException | RuntimeException e) {
+        // Stop the chunks that have not started yet, the graph is not going to be used.
+        chunks.forEach(other -> other.cancel(false));
+        throw e;
+      }
+    }
+  }
+
+  /**
+   * Splits the file into chunks of about {@link #CHUNK_SIZE} bytes, moving each split forward to
+   * just after the end of a line.
+   *
+   * @param channel The open file.
+   * @return The start of every chunk, then the length of the file.
+   * @throws IOException If the file could not be read.
+   */
+  private static long[] chunkBounds(final FileChannel channel) throws IOException {
+    final long size = channel.size();
+    final ByteBuffer scan = ByteBuffer.allocate(SNIFF_SIZE);
+    final List<Long> bounds = new ArrayList<>();
+    bounds.add(0L);
+    long position = CHUNK_SIZE;
+
+    while (position < size) {
+      // Look for the next line break at or after the nominal split.
+      long split = -1;
+
+      while (split < 0 && position < size) {
+        scan.clear();
+        final int read = channel.read(scan, position);
+
+        for (int i = 0; i < read && split < 0; i++) {
+          if (scan.get(i) == '\n') {
+            split = position + i + 1;
+          }
+        }
+
+        position += Math.max(read, 0);
+      }
+
+      if (split < 0 || split >= size) {
+        break;
+      }
+
+      bounds.add(split);
+      position = split + CHUNK_SIZE;
+    }
+
+    bounds.add(size);
+
+    return bounds.stream().mapToLong(Long::longValue).toArray();
+  }
+
+  /**
+   * One chunk of the file, parsed into labels numbered in the order they first appear in the
+   * chunk, and pairs of those numbers for the edges.
+   */
+  private static class Chunk extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final transient MappedByteBuffer bytes;
+
+    private int[] labelStarts = new int[64];
+
+    private int[] labelEnds = new int[64];
+
+    private long[] slots = new long[128];
+
+    private int labelCount;
+
+    private int[] pairs = new int[256];
+
+    private int pairCount;
+
+    private int lines;
+
+    private int errorLine;
+
+    private String error;
+
+    private String[] labels;
+
+    /**
+     * Creates a new chunk.
+     *
+     * @param bytes The bytes of the chunk, which start at the beginning of a line.
+     */
+    Chunk(final MappedByteBuffer bytes) {
+      this.bytes = bytes;
+    }
+
+    @Override
+    protected void compute() {
+      final int limit = bytes.limit();
+      final int[] fields = new int[4];
+      int position = 0;
+
+      while (position < limit && errorLine == 0) {
+        // Find the end of the line, ignoring a carriage return before the line break.
+        int end = position;
+        while (end < limit && bytes.get(end) != '\n') {
+          end++;
+        }
+        lines++;
+
+        int lineEnd = end;
+        if (lineEnd > position && bytes.get(lineEnd - 1) == '\r') {
+          lineEnd--;
+        }
+
+        parseLine(position, lineEnd, fields);
+        position = end + 1;
+      }
+
+      decodeLabels();
+    }
+
+    /**
+     * Parses a single line into a vertex or an edge.
+     *
+     * @param start The index of the first byte of the line.
+     * @param end The index just past the last byte of the line.
+     * @param fields Scratch space for the start and end of the first two fields.
+     */
+    private void parseLine(final int start, final int end, final int[] fields) {
+      int count = 0;
+      int i = start;
+
+      while (i < end) {
+        final byte b = bytes.get(i);
+
+        if (isSeparator(b)) {
+          i++;
+          continue;
+        }
+
+        if (count == 0 && (b == '#' || b == '%')) {
+          return;
+        }
+
+        if (count == 2) {
+          errorLine = lines;
+          error = "expected 'source destination' but found more than two fields";
+          return;
+        }
+
+        fields[2 * count] = i;
+        while (i < end && !isSeparator(bytes.get(i))) {
+          i++;
+        }
+        fields[2 * count + 1] = i;
+        count++;
+      }
+
+      if (count == 0) {
+        return;
+      }
+
+      final int source = intern(fields[0], fields[1]);
+      final int destination = count == 2 ? intern(fields[2], fields[3]) : -1;
+
+      if (pairCount + 2 > pairs.length) {
+        pairs = Arrays.copyOf(pairs, pairs.length * 2);
+      }
+
+      pairs[pairCount++] = source;
+      pairs[pairCount++] = destination;
+    }
+
+    /**
+     * Gets the chunk's number for the label held in part of the chunk, adding the label if it is
+     * new.
+     *
+     * @param start The index of the first byte of the label.
+     * @param end The index just past the last byte of the label.
+     * @return The number of the label in this chunk.
+     */
+    private int intern(final int start, final int end) {
+      int hash = 0;
+      for (int i = start; i < end; i++) {
+        hash = 31 * hash + bytes.get(i);
+      }
+
+      final int mask = slots.length - 1;
+      int slot = mix(hash) & mask;
+
+      // Slots hold the hash in the high half and one more than the label number in the low half,
+      // so zero means empty and most mismatches are caught without looking at the label.
+      final long key = (long) hash << 32;
+      while (slots[slot] != 0) {
+        final int id = (int) slots[slot] - 1;
+        if ((slots[slot] & 0xFFFFFFFF00000000L) == key && matches(id, start, end)) {
+          return id;
+        }
+        slot = (slot + 1) & mask;
+      }
+
+      if (labelCount == labelStarts.length) {
+        labelStarts = Arrays.copyOf(labelStarts, labelCount * 2);
+        labelEnds = Arrays.copyOf(labelEnds, labelCount * 2);
+      }
+
+      labelStarts[labelCount] = start;
+      labelEnds[labelCount] = end;
+      slots[slot] = key | ++labelCount;
+
+      // Keep the table at most half full.
+      if (labelCount * 2 > slots.length) {
+        rehash();
+      }
+
+      return labelCount - 1;
+    }
+
+    /**
+     * Checks if a stored label has the same bytes as part of the chunk.
+     *
+     * @param id The number of the stored label.
+     * @param start The index of the first byte of the candidate.
+     * @param end The index just past the last byte of the candidate.
+     * @return If the bytes are the same.
+     */
+    private boolean matches(final int id, final int start, final int end) {
+      if (labelEnds[id] - labelStarts[id] != end - start) {
+        return false;
+      }
+
+      for (int i = 0; i < end - start; i++) {
+        if (bytes.get(labelStarts[id] + i) != bytes.get(start + i)) {
+          return false;
+        }
+      }
+
+      return true;
+    }
+
+    /** Doubles the slots of the table and re-inserts every label. */
+    private void rehash() {
+      final long[] oldSlots = slots;
+      slots = new long[oldSlots.length * 2];
+      final int mask = slots.length - 1;
+
+      for (final long entry : oldSlots) {
+        if (entry != 0) {
+          int slot = mix((int) (entry >>> 32)) & mask;
+          while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+          }
+          slots[slot] = entry;
+        }
+      }
+    }
+
+    /**
+     * Spreads the bits of a label hash, so similar labels land in different slots.
+     *
+     * @param hash The hash.
+     * @return The mixed hash.
+     */
+    private static int mix(final int hash) {
+      final int h = hash * 0x9E3779B9;
+      return h ^ (h >>> 16);
+    }
+
+    /** Turns every label in the chunk into a string, ready to be merged. */
+    private void decodeLabels() {
+      labels = new String[labelCount];
+
+      for (int id = 0; id < labelCount; id++) {
+        final byte[] utf8 = new byte[labelEnds[id] - labelStarts[id]];
+        bytes.get(labelStarts[id], utf8);
+        labels[id] = new String(utf8, StandardCharsets.UTF_8);
+      }
+    }
+
+    /**
+     * Adds every label and edge in the chunk to a builder, in the order they appear.
+     *
+     * @param builder The builder to add to.
+     */
+    void mergeInto(final GraphBuilder<String> builder) {
+      final int[] ids = new int[labelCount];
+
+      for (int i = 0; i < labelCount; i++) {
+        ids[i] = builder.addVertex(labels[i]);
+      }
+
+      for (int i = 0; i < pairCount; i += 2) {
+        if (pairs[i + 1] >= 0) {
+          builder.addEdge(ids[pairs[i]], ids[pairs[i + 1]]);
+        }
+      }
+    }
+
+    /**
+     * Checks if a byte separates two fields.
+     *
+     * @param b The byte.
+     * @return If it is a comma, space or tab.
+     */
+    private static boolean isSeparator(final byte b) {
+      return b == ',' || b == ' ' || b == '\t';
+    }
+  }
+}
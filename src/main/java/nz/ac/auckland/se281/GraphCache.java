@@ -0,0 +1,236 @@
+package nz.ac.auckland.se281;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+
+/**
+ * A session level cache of loaded graphs, so reopening a recently used file reuses the graph and
+ * every property already computed for it instead of parsing it again.
+ *
+ * <p>Entries are keyed by the resolved path of the file together with its size and last modified
+ * time, so a file that has changed on disk is loaded again. The least recently used graphs are
+ * evicted once the estimated size of every cached graph goes over the memory budget.
+ *
+ * <p>It is safe to share between threads, and graphs are loaded without holding its lock.
+ */
+class GraphCache {
+  /** The system property that sets the budget, in bytes or with a k, m or g suffix. */
+  static final String BUDGET_PROPERTY = "graphcalculator.cache.budget";
+
+  /** Loads a graph calculator when it is not in the cache. */
+  @FunctionalInterface
+  interface Loader {
+    /**
+     * Loads the graph calculator.
+     *
+     * @return The graph calculator.
+     * @throws IOException If the graph could not be loaded.
+     */
+    GraphCalculator load() throws IOException;
+  }
+
+  private final long budget;
+
+  // Access ordered, so the first entry is always the least recently used.
+  private final LinkedHashMap<Key, GraphCalculator> entries =
+      new LinkedHashMap<>(16, 0.75f, true);
+
+  /**
+   * Creates a new cache.
+   *
+   * @param budget The most memory, in bytes, that the cached graphs should take up.
+   */
+  GraphCache(final long budget) {
+    this.budget = budget;
+  }
+
+  /**
+   * Creates a new cache with the budget from {@link #BUDGET_PROPERTY}, or a quarter of the maximum
+   * heap size if it is not set or not a valid size.
+   *
+   * @return The cache.
+   */
+  static GraphCache withDefaultBudget() {
+    return new GraphCache(defaultBudget());
+  }
+
+  /**
+   * Gets the budget set by {@link #BUDGET_PROPERTY}, or a quarter of the maximum heap size if it is
+   * not set or not a valid size.
+   *
+   * @return The budget in bytes.
+   */
+  static long defaultBudget() {
+    final String property = System.getProperty(BUDGET_PROPERTY, "").trim();
+
+    try {
+      return parseBytes(property);
+    } catch (NumberFormatException e) {
+      return Runtime.getRuntime().maxMemory() / 4;
+    }
+  }
+
+  /**
+   * Gets the graph calculator for a file, loading it if it is not cached or has changed since it
+   * was cached.
+   *
+   * @param path The file the graph is loaded from.
+   * @param loader Loads the graph calculator if it is not in the cache.
+   * @return The graph calculator.
+   * @throws IOException If the graph had to be loaded and could not be.
+   */
+  GraphCalculator open(final Path path, final Loader loader) throws IOException {
+    if (!Files.isRegularFile(path)) {
+      // Let the loader report the missing file.
+      return loader.load();
+    }
+
+    final Key key = Key.of(path);
+
+    synchronized (this) {
+      final GraphCalculator cached = entries.get(key);
+
+      if (cached != null) {
+        return cached;
+      }
+    }
+
+    // Load without holding the lock, so a slow background load does not block other opens.
+    final GraphCalculator calculator = loader.load();
+
+    // A file that changed while it was loading may not match the graph, so it is not cached.
+    if (!Files.isRegularFile(path) || !key.equals(Key.of(path))) {
+      return calculator;
+    }
+
+    synchronized (this) {
+      // Drop any older version of the same file, it can never be hit again.
+      entries.keySet().removeIf(other -> other.path.equals(key.path));
+      entries.put(key, calculator);
+      evict(calculator);
+    }
+
+    return calculator;
+  }
+
+  /**
+   * Gets how much of the budget the cached graphs leave free.
+   *
+   * @return The unused budget in bytes, or zero if the cache is over its budget.
+   */
+  synchronized long remainingBudget() {
+    long total = 0;
+
+    for (final GraphCalculator calculator : entries.values()) {
+      total += calculator.estimatedBytes();
+    }
+
+    return Math.max(0, budget - total);
+  }
+
+  /**
+   * Evicts the least recently used graphs until the cache is within its budget. Sizes are
+   * estimated again each time, since graphs grow as their properties are computed.
+   *
+   * @param keep The graph being opened, which is never evicted even if it is over budget alone.
+   */
+  private void evict(final GraphCalculator keep) {
+    long total = 0;
+
+    for (final GraphCalculator calculator : entries.values()) {
+      total += calculator.estimatedBytes();
+    }
+
+    final Iterator<GraphCalculator> iterator = entries.values().iterator();
+
+    while (total > budget && iterator.hasNext()) {
+      final GraphCalculator calculator = iterator.next();
+
+      if (calculator != keep) {
+        total -= calculator.estimatedBytes();
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * Parses a number of bytes, with an optional k, m or g suffix.
+   *
+   * @param text The text to parse.
+   * @return The number of bytes.
+   * @throws NumberFormatException If the text is not a valid size.
+   */
+  private static long parseBytes(final String text) {
+    if (text.isEmpty()) {
+      throw new NumberFormatException("empty size");
+    }
+
+    final char suffix = Character.toLowerCase(text.charAt(text.length() - 1));
+    final int shift = suffix == 'k' ? 10 : suffix == 'm' ? 20 : suffix == 'g' ? 30 : 0;
+    final String digits = shift == 0 ? text : text.substring(0, text.length() - 1);
+
+    return Long.parseLong(digits.trim()) << shift;
+  }
+
+  /** The resolved path of a file, with its size and last modified time when it was loaded. */
+  private static final class Key {
+    private final Path path;
+
+    private final long size;
+
+    private final long modified;
+
+    /**
+     * Creates a new key.
+     *
+     * @param path The resolved path of the file.
+     * @param size The size of the file in bytes.
+     * @param modified The last modified time of the file in milliseconds.
+     */
+    private Key(final Path path, final long size, final long modified) {
+      this.path = path;
+      this.size = size;
+      this.modified = modified;
+    }
+
+    /**
+     * Creates the key for a file as it is now.
+     *
+     * @param path The file.
+     * @return The key.
+     * @throws IOException If the file attributes could not be read.
+     */
+    static Key of(final Path path) throws IOException {
+      final Path resolved = path.toRealPath();
+      final BasicFileAttributes attributes =
+          Files.readAttributes(resolved, BasicFileAttributes.class);
+
+      return new Key(resolved, attributes.size(), attributes.lastModifiedTime().toMillis());
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (this == obj) {
+        return true;
+      }
+
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+
+      final Key other = (Key) obj;
+
+      return path.equals(other.path) && size == other.size && modified == other.modified;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(path, size, modified);
+    }
+  }
+}
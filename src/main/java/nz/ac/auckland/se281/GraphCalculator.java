@@ -1,17 +1,23 @@
 package nz.ac.auckland.se281;
 
-import com.paypal.digraph.parser.GraphEdge;
-import com.paypal.digraph.parser.GraphNode;
-import com.paypal.digraph.parser.GraphParser;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.HashSet;
-import java.util.Set;
-import nz.ac.auckland.se281.datastructures.Edge;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
 import nz.ac.auckland.se281.datastructures.Graph;
+import nz.ac.auckland.se281.datastructures.GraphBuilder;
+import nz.ac.auckland.se281.datastructures.GraphSnapshot;
+import nz.ac.auckland.se281.events.GraphParseEvent;
 
 /**
  * The calculator that reports properties of graphs to the user.
@@ -21,130 +27,409 @@ import nz.ac.auckland.se281.datastructures.Graph;
 public class GraphCalculator {
   private static final Path TESTCASES = Path.of("testcases");
 
+  private static final long UNKNOWN_CHECKSUM = -1;
+
   private final Path file;
 
-  private final Collection<GraphNode> verticies;
+  private final Graph<String> graph;
+
+  private final long sourceChecksum;
 
-  private final Collection<GraphEdge> edges;
+  private final long sourceLength;
 
-  private final Graph<String> graph;
+  private final long sourceModified;
+
+  private final boolean stale;
+
+  private final String snapshotName;
 
   /**
    * Creates a new graph calculator.
    *
+   * <p>The file can be a DOT graph, or a plain edge list with one {@code source destination} or
+   * {@code source,destination} pair per line.
+   *
+   * @param filename The name of the test case to read.
+   * @throws FileNotFoundException If the file does not exist.
+   * @throws IOException If the file could not be read, or is not a valid graph.
+   */
+  public GraphCalculator(final String filename) throws IOException {
+    this(filename, new LoadProgress());
+  }
+
+  /**
+   * Creates a new graph calculator, reporting how far the load has got as it goes.
+   *
    * @param filename The name of the test case to read.
+   * @param progress The progress to report to, which can also cancel the load.
    * @throws FileNotFoundException If the file does not exist.
+   * @throws IOException If the file could not be read, or is not a valid graph.
+   * @throws java.util.concurrent.CancellationException If the load was cancelled.
    */
-  public GraphCalculator(final String filename) throws FileNotFoundException {
+  GraphCalculator(final String filename, final LoadProgress progress) throws IOException {
     file = TESTCASES.resolve(filename);
 
-    final GraphParser parser = new GraphParser(new FileInputStream(file.toFile()));
+    final GraphBuilder<String> builder = new GraphBuilder<>();
+
+    if (!Files.isRegularFile(file)) {
+      throw new FileNotFoundException(filename);
+    }
+
+    final GraphParseEvent event = new GraphParseEvent();
+    final boolean edgeList = EdgeListParser.isEdgeList(file);
+    event.begin();
+
+    if (edgeList) {
+      // Edge lists are parsed in parallel chunks, so the checksum is left until it is needed.
+      new EdgeListParser(file, builder, progress).parse();
+      sourceChecksum = UNKNOWN_CHECKSUM;
+    } else {
+      // Stream the file straight into the graph builder, checksumming it on the way past.
+      final CheckedInputStream input =
+          new CheckedInputStream(
+              progress.track(new FileInputStream(file.toFile()), builder), new CRC32C());
+      try (Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8)) {
+        new DotParser(reader, builder).parse();
+      }
+      sourceChecksum = input.getChecksum().getValue();
+    }
+
+    sourceLength = Files.size(file);
+    sourceModified = Files.getLastModifiedTime(file).toMillis();
+    event.record(
+        filename,
+        edgeList ? "edge list" : "dot",
+        sourceLength,
+        builder.vertexCount(),
+        builder.edgeCount());
+
+    progress.enter(LoadProgress.Phase.BUILDING);
+    graph = builder.build();
+    stale = false;
+    snapshotName = null;
+    progress.enter(LoadProgress.Phase.DONE);
+  }
 
-    this.verticies = parser.getNodes().values();
-    this.edges = parser.getEdges().values();
+  /**
+   * Creates a new graph calculator for a graph that was not loaded from a file, such as a generated
+   * one.
+   *
+   * @param name The name shown for the graph in place of a file name.
+   * @param graph The graph.
+   */
+  GraphCalculator(final String name, final Graph<String> graph) {
+    this.file = TESTCASES.resolve(name);
+    this.graph = graph;
+    this.sourceChecksum = UNKNOWN_CHECKSUM;
+    this.sourceLength = 0;
+    this.sourceModified = 0;
+    this.stale = false;
+    this.snapshotName = null;
+  }
 
-    final Set<String> verticies = new HashSet<>();
+  /**
+   * Creates a new graph calculator from a graph loaded out of a snapshot.
+   *
+   * @param filename The name of the snapshot in the test case folder.
+   * @param snapshot The loaded snapshot.
+   */
+  private GraphCalculator(final String filename, final GraphSnapshot snapshot)
+      throws IOException {
+    snapshotName = filename;
+    file = TESTCASES.resolve(snapshot.getSourceName());
+    graph = snapshot.getGraph();
+    sourceChecksum = snapshot.getSourceChecksum();
+    sourceLength = snapshot.getSourceLength();
+    sourceModified = snapshot.getSourceModified();
+    stale = Files.isRegularFile(file) && sourceChanged();
+  }
 
-    for (final GraphNode node : this.verticies) {
-      verticies.add(node.getId());
+  /**
+   * Checks if the source file has changed since the snapshot was saved. The size and modified time
+   * decide it without reading the file, which is only checksummed if it was touched but kept its
+   * size.
+   *
+   * @return If the source file has changed.
+   * @throws IOException If the source file could not be read.
+   */
+  private boolean sourceChanged() throws IOException {
+    if (Files.size(file) != sourceLength) {
+      return true;
+    }
+    if (Files.getLastModifiedTime(file).toMillis() == sourceModified) {
+      return false;
     }
+    return checksum(file) != sourceChecksum;
+  }
 
-    final Set<Edge<String>> edges = new HashSet<>();
+  /**
+   * Creates a new graph calculator from a snapshot saved by {@link #saveSnapshot(String)}.
+   *
+   * @param filename The name of the snapshot in the test case folder.
+   * @return The graph calculator.
+   * @throws FileNotFoundException If the snapshot does not exist.
+   * @throws IOException If the snapshot could not be read, or is not a valid snapshot.
+   */
+  public static GraphCalculator fromSnapshot(final String filename) throws IOException {
+    final Path path = TESTCASES.resolve(filename);
 
-    for (final GraphEdge edge : this.edges) {
-      edges.add(new Edge<>(edge.getNode1().getId(), edge.getNode2().getId()));
+    if (!Files.isRegularFile(path)) {
+      throw new FileNotFoundException(filename);
     }
 
-    graph = new Graph<>(verticies, edges);
+    return new GraphCalculator(filename, GraphSnapshot.read(path));
+  }
+
+  /**
+   * Saves the loaded graph, and every property computed for it so far, to a snapshot.
+   *
+   * @param filename The name of the snapshot in the test case folder.
+   * @throws IOException If the snapshot could not be written.
+   */
+  public void saveSnapshot(final String filename) throws IOException {
+    GraphSnapshot.write(
+        graph,
+        TESTCASES.relativize(file).toString(),
+        sourceChecksum == UNKNOWN_CHECKSUM && Files.isRegularFile(file)
+            ? checksum(file)
+            : sourceChecksum,
+        sourceLength,
+        sourceModified,
+        TESTCASES.resolve(filename));
+  }
+
+  /**
+   * Gets the name of the snapshot the graph was loaded from.
+   *
+   * @return The snapshot name, or null if the graph was not loaded from a snapshot.
+   */
+  String getSnapshotName() {
+    return snapshotName;
+  }
+
+  /**
+   * Checks if the graph was loaded from a snapshot whose source file has changed since.
+   *
+   * @return If the snapshot is out of date.
+   */
+  public boolean isStale() {
+    return stale;
+  }
+
+  /**
+   * Resolves the name of a test case to its file.
+   *
+   * @param filename The name of the test case.
+   * @return The path of the file in the test case folder.
+   */
+  static Path resolve(final String filename) {
+    return TESTCASES.resolve(filename);
   }
 
-  /** Prints the filename of the test case that is loaded. */
-  public void printInfo() {
-    MessageCli.INFO.printMessage(TESTCASES.relativize(file).toString());
+  /**
+   * Estimates how much memory the loaded graph holds.
+   *
+   * @return The estimated size in bytes.
+   */
+  long estimatedBytes() {
+    return graph.estimatedBytes();
   }
 
-  /** Prints the set of verticies and edges in the graph. */
-  public void printVerticiesEdges() {
-    final StringBuilder sb = new StringBuilder("Verticies:").append(System.lineSeparator());
+  /**
+   * Gets the loaded graph.
+   *
+   * @return The graph.
+   */
+  Graph<String> getGraph() {
+    return graph;
+  }
+
+  /**
+   * Prints the filename of the test case that is loaded.
+   *
+   * @param out Where to write the result.
+   */
+  public void printInfo(final ResultWriter out) {
+    out.println(MessageCli.INFO.getMessage(TESTCASES.relativize(file).toString()));
+  }
+
+  /**
+   * Prints the set of verticies and edges in the graph.
+   *
+   * @param out Where to write the result.
+   */
+  public void printVerticiesEdges(final ResultWriter out) {
+    out.println("Verticies:");
+
+    // List the verticies and edges in the order of their labels.
+    final List<String> verticies = new ArrayList<>(graph.getVerticies());
+    verticies.sort(Comparator.naturalOrder());
 
     // Vertically print each vertex.
-    for (final GraphNode node : verticies) {
-      sb.append("\t").append(node.getId()).append(System.lineSeparator());
+    for (final String vertex : verticies) {
+      out.print("\t").println(vertex);
     }
 
-    sb.append(System.lineSeparator()).append("Edges:").append(System.lineSeparator());
+    out.println("");
+    out.println("Edges:");
 
     // Vertically print each edge between verticies.
-    for (final GraphEdge edge : edges) {
-      sb.append("\t")
-          .append(edge.getNode1().getId())
-          .append(" -> ")
-          .append(edge.getNode2().getId())
-          .append(System.lineSeparator());
-    }
-
-    System.out.print(sb.toString());
+    graph.forEachEdge(
+        Comparator.naturalOrder(),
+        (source, destination) -> out.print("\t").print(source).print(" -> ").println(destination));
   }
 
-  /** Prints the set of verticies in the graph that are root verticies. */
-  public void printRoots() {
-    System.out.println(graph.getRoots());
+  /**
+   * Prints the set of verticies in the graph that are root verticies.
+   *
+   * @param out Where to write the result.
+   */
+  public void printRoots(final ResultWriter out) {
+    out.printList(graph.getRoots());
   }
 
-  /** Prints if the set of verticies in the graph exhibit the reflexivity property. */
-  public void printReflexitivity() {
-    MessageCli.GRAPH_REFLEXIVE.printMessage(prefixNot(graph.isReflexive()));
+  /**
+   * Prints if the set of verticies in the graph exhibit the reflexivity property.
+   *
+   * @param out Where to write the result.
+   */
+  public void printReflexitivity(final ResultWriter out) {
+    out.println(MessageCli.GRAPH_REFLEXIVE.getMessage(prefixNot(graph.isReflexive())));
   }
 
-  /** Prints if the set of edges in the graph exhibit the symmetric property. */
-  public void printSymmetry() {
-    MessageCli.GRAPH_SYMMETRIC.printMessage(prefixNot(graph.isSymmetric()));
+  /**
+   * Prints if the set of edges in the graph exhibit the symmetric property.
+   *
+   * @param out Where to write the result.
+   */
+  public void printSymmetry(final ResultWriter out) {
+    out.println(MessageCli.GRAPH_SYMMETRIC.getMessage(prefixNot(graph.isSymmetric())));
   }
 
-  /** Prints if the set of edges in the graph exhibit transitivity. */
-  public void printTransitivity() {
-    MessageCli.GRAPH_TRANSITIVE.printMessage(prefixNot(graph.isTransitive()));
+  /**
+   * Prints if the set of edges in the graph exhibit transitivity.
+   *
+   * @param out Where to write the result.
+   */
+  public void printTransitivity(final ResultWriter out) {
+    out.println(MessageCli.GRAPH_TRANSITIVE.getMessage(prefixNot(graph.isTransitive())));
   }
 
-  /** Prints if the set of edges in the graph exhibit anti-symmetry. */
-  public void printAntiSymmetry() {
-    MessageCli.GRAPH_ANTI_SYMMETRIC.printMessage(prefixNot(graph.isAntiSymmetric()));
+  /**
+   * Prints if the set of edges in the graph exhibit anti-symmetry.
+   *
+   * @param out Where to write the result.
+   */
+  public void printAntiSymmetry(final ResultWriter out) {
+    out.println(MessageCli.GRAPH_ANTI_SYMMETRIC.getMessage(prefixNot(graph.isAntiSymmetric())));
   }
 
-  /** Prints if the entire graph is considered an equivalence relation. */
-  public void printEquivalence() {
-    MessageCli.GRAPH_EQUIVALENCE.printMessage(prefixNot(graph.isEquivalence()));
+  /**
+   * Prints if the entire graph is considered an equivalence relation.
+   *
+   * @param out Where to write the result.
+   */
+  public void printEquivalence(final ResultWriter out) {
+    out.println(MessageCli.GRAPH_EQUIVALENCE.getMessage(prefixNot(graph.isEquivalence())));
   }
 
   /**
    * Prints the verticies in the equivalence class of the given vertex.
    *
+   * @param out Where to write the result.
    * @param vertex The vertex to compute the equivalence class of.
    */
-  public void printEquivalenceClass(final String vertex) {
-    final Object[] equivalenceClass = graph.getEquivalenceClass(vertex).toArray();
-    Arrays.sort(equivalenceClass);
-    System.out.println(Arrays.toString(equivalenceClass));
+  public void printEquivalenceClass(final ResultWriter out, final String vertex) {
+    // The class is already in vertex order, so it is printed as is.
+    out.printList(graph.getEquivalenceClass(vertex));
   }
 
-  /** Prints the search order of an iterative breadth first search. */
-  public void printIterativeBreadthFirstSearch() {
-    System.out.println(Arrays.toString(graph.iterativeBreadthFirstSearch().toArray()));
+  /**
+   * Prints every equivalence class of the graph.
+   *
+   * @param out Where to write the result.
+   */
+  public void printEquivalenceClasses(final ResultWriter out) {
+    out.printList(graph.getEquivalenceClasses());
   }
 
-  /** Prints the search order of an iterative depth first search. */
-  public void printDepthFirstSearch() {
-    System.out.println(Arrays.toString(graph.iterativeDepthFirstSearch().toArray()));
+  /**
+   * Prints the search order of an iterative breadth first search.
+   *
+   * @param out Where to write the result.
+   */
+  public void printIterativeBreadthFirstSearch(final ResultWriter out) {
+    out.printList(graph.iterativeBreadthFirstSearch());
+  }
+
+  /**
+   * Prints the search order of an iterative depth first search.
+   *
+   * @param out Where to write the result.
+   */
+  public void printDepthFirstSearch(final ResultWriter out) {
+    out.printList(graph.iterativeDepthFirstSearch());
   }
 
-  /** Prints the search order of a recursive breadth first search. */
-  public void printRecursiveBreadthFirstSearch() {
-    System.out.println(Arrays.toString(graph.recursiveBreadthFirstSearch().toArray()));
+  /**
+   * Prints the start of the search order of a breadth first search, stopping the search once
+   * enough verticies have been visited.
+   *
+   * @param out Where to write the result.
+   * @param limit The most verticies to print.
+   */
+  public void printBreadthFirstSearch(final ResultWriter out, final int limit) {
+    out.printList(graph.breadthFirstIterator(), limit);
+  }
+
+  /**
+   * Prints the start of the search order of a depth first search, stopping the search once enough
+   * verticies have been visited.
+   *
+   * @param out Where to write the result.
+   * @param limit The most verticies to print.
+   */
+  public void printDepthFirstSearch(final ResultWriter out, final int limit) {
+    out.printList(graph.depthFirstIterator(), limit);
   }
 
-  /** Prints the search order of a recursive depth first search. */
-  public void printRecursiveDepthFirstSearch() {
-    System.out.println(Arrays.toString(graph.recursiveDepthFirstSearch().toArray()));
+  /**
+   * Prints the search order of a recursive breadth first search.
+   *
+   * @param out Where to write the result.
+   */
+  public void printRecursiveBreadthFirstSearch(final ResultWriter out) {
+    out.printList(graph.recursiveBreadthFirstSearch());
+  }
+
+  /**
+   * Prints the search order of a recursive depth first search.
+   *
+   * @param out Where to write the result.
+   */
+  public void printRecursiveDepthFirstSearch(final ResultWriter out) {
+    out.printList(graph.recursiveDepthFirstSearch());
+  }
+
+  /**
+   * Computes the checksum of a whole file, the same way it is computed while parsing.
+   *
+   * @param path The file to checksum.
+   * @return The checksum.
+   * @throws IOException If the file could not be read.
+   */
+  private static long checksum(final Path path) throws IOException {
+    final CRC32C crc = new CRC32C();
+    final byte[] buffer = new byte[1 << 16];
+
+    try (InputStream input = Files.newInputStream(path)) {
+      int read;
+      while ((read = input.read(buffer)) != -1) {
+        crc.update(buffer, 0, read);
+      }
+    }
+
+    return crc.getValue();
   }
 
   /**
@@ -0,0 +1,89 @@
+package nz.ac.auckland.se281;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import nz.ac.auckland.se281.datastructures.GraphGenerator;
+
+/**
+ * Writes generated graphs to files that can be opened again, streaming each edge to the file as it
+ * is generated so the graph is never held in memory.
+ *
+ * <p>Files ending in {@code .dot} or {@code .gv} are written in DOT, and every other file as a
+ * plain edge list with one {@code source destination} pair per line. Verticies without edges are
+ * written on their own after the edges, in both formats.
+ */
+class GraphWriter {
+  private final Path file;
+
+  private final boolean dot;
+
+  /**
+   * Creates a new graph writer.
+   *
+   * @param file The file to write to, whose extension picks the format.
+   */
+  GraphWriter(final Path file) {
+    final String name = file.getFileName().toString().toLowerCase();
+
+    this.file = file;
+    this.dot = name.endsWith(".dot") || name.endsWith(".gv");
+  }
+
+  /**
+   * Generates a graph into the file, replacing anything already in it.
+   *
+   * @param generator The generator of the graph.
+   * @return The number of edges written.
+   * @throws IOException If the file could not be written.
+   */
+  long write(final GraphGenerator generator) throws IOException {
+    final long[] edges = new long[1];
+
+    try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+      if (dot) {
+        writer.write("digraph generated {\n");
+      }
+
+      final String arrow = dot ? " -> " : " ";
+      final String indent = dot ? "  " : "";
+      final String end = dot ? ";\n" : "\n";
+
+      // The consumers cannot throw checked exceptions, so failures are carried out unchecked.
+      try {
+        generator.generate(
+            (source, destination) -> {
+              edges[0]++;
+              write(writer, indent + source + arrow + destination + end);
+            },
+            vertex -> write(writer, indent + vertex + end));
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+
+      if (dot) {
+        writer.write("}\n");
+      }
+    }
+
+    return edges[0];
+  }
+
+  /**
+   * Writes a line to the file from inside a generator callback.
+   *
+   * @param writer The writer of the file.
+   * @param line The line to write.
+   * @throws UncheckedIOException If the line could not be written.
+   */
+  private static void write(final Writer writer, final String line) {
+    try {
+      writer.write(line);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
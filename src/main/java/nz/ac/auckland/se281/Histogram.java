@@ -0,0 +1,136 @@
+package nz.ac.auckland.se281;
+
+/**
+ * A histogram of non-negative values, such as latencies in nanoseconds, that answers percentiles
+ * to within about 6% in fixed memory.
+ *
+ * <p>Values below 16 get a bucket each. Every power of two above that is split into 16 equal
+ * buckets, so recording a value is a few bit operations and an array increment, and no value is
+ * ever kept. It is safe to share between threads.
+ */
+class Histogram {
+  private static final int SUB_BUCKET_BITS = 4;
+
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  // One group of sub-buckets for the small values, then one for each power of two from 2^4.
+  private static final int BUCKETS = SUB_BUCKETS * (Long.SIZE - SUB_BUCKET_BITS);
+
+  private final long[] counts = new long[BUCKETS];
+
+  private long count;
+
+  private long sum;
+
+  private long max;
+
+  /**
+   * Records a value. Negative values are recorded as zero.
+   *
+   * @param value The value to record.
+   */
+  synchronized void record(final long value) {
+    final long clamped = Math.max(0, value);
+
+    counts[bucketOf(clamped)]++;
+    count++;
+    sum += clamped;
+    max = Math.max(max, clamped);
+  }
+
+  /**
+   * Gets the number of values recorded.
+   *
+   * @return The number of values.
+   */
+  synchronized long getCount() {
+    return count;
+  }
+
+  /**
+   * Gets the sum of every value recorded.
+   *
+   * @return The sum.
+   */
+  synchronized long getSum() {
+    return sum;
+  }
+
+  /**
+   * Gets the largest value recorded.
+   *
+   * @return The largest value, or zero if nothing has been recorded.
+   */
+  synchronized long getMax() {
+    return max;
+  }
+
+  /**
+   * Gets the mean of the values recorded.
+   *
+   * @return The mean, or zero if nothing has been recorded.
+   */
+  synchronized long getMean() {
+    return count == 0 ? 0 : sum / count;
+  }
+
+  /**
+   * Gets the value that a given fraction of the recorded values are at or below.
+   *
+   * @param fraction The fraction, from 0 to 1, such as 0.99 for the 99th percentile.
+   * @return The highest value in the bucket of the percentile, or zero if nothing has been
+   *     recorded.
+   */
+  synchronized long getPercentile(final double fraction) {
+    if (count == 0) {
+      return 0;
+    }
+
+    final long rank = Math.max(1, (long) Math.ceil(fraction * count));
+    long seen = 0;
+
+    for (int bucket = 0; bucket < BUCKETS; bucket++) {
+      seen += counts[bucket];
+
+      if (seen >= rank) {
+        return Math.min(max, highestIn(bucket));
+      }
+    }
+
+    return max;
+  }
+
+  /**
+   * Finds the bucket a value is counted in.
+   *
+   * @param value The value, at least zero.
+   * @return The index of the bucket.
+   */
+  private static int bucketOf(final long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+
+    final int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+    final int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+  }
+
+  /**
+   * Finds the highest value counted in a bucket.
+   *
+   * @param bucket The index of the bucket.
+   * @return The highest value.
+   */
+  private static long highestIn(final int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+
+    final int shift = bucket / SUB_BUCKETS - 1;
+    final long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+
+    return lowest + (1L << shift) - 1;
+  }
+}
@@ -0,0 +1,124 @@
+package nz.ac.auckland.se281;
+
+import nz.ac.auckland.se281.datastructures.GraphBuilder;
+
+/**
+ * Maps vertex labels read straight out of a character buffer to their ids in a graph builder.
+ *
+ * <p>A label is only turned into a {@link String} the first time it is seen. Every later
+ * occurrence is matched against the stored labels in place, so reading a vertex that appears in
+ * many edges does not allocate.
+ */
+class LabelTable {
+
+  private final GraphBuilder<String> builder;
+  private String[] labels;
+  private int[] ids;
+  private int size;
+
+  /**
+   * Creates a new label table that adds new labels to the given builder.
+   *
+   * @param builder The builder to add new verticies to.
+   */
+  LabelTable(final GraphBuilder<String> builder) {
+    this.builder = builder;
+    labels = new String[64];
+    ids = new int[64];
+  }
+
+  /**
+   * Gets the id of the label held in part of a character buffer, adding the vertex if it is new.
+   *
+   * @param buffer The buffer holding the label.
+   * @param start The index of the first character of the label.
+   * @param length The number of characters in the label.
+   * @return The id of the vertex.
+   */
+  int intern(final char[] buffer, final int start, final int length) {
+    int hash = 0;
+    for (int i = start; i < start + length; i++) {
+      hash = 31 * hash + buffer[i];
+    }
+
+    int mask = labels.length - 1;
+    int slot = mix(hash) & mask;
+
+    while (labels[slot] != null) {
+      if (matches(labels[slot], buffer, start, length)) {
+        return ids[slot];
+      }
+      slot = (slot + 1) & mask;
+    }
+
+    final String label = new String(buffer, start, length);
+    final int id = builder.addVertex(label);
+    labels[slot] = label;
+    ids[slot] = id;
+    size++;
+
+    // Keep the table at most half full.
+    if (size * 2 > labels.length) {
+      grow();
+    }
+
+    return id;
+  }
+
+  /**
+   * Checks if a stored label has the same characters as part of a buffer.
+   *
+   * @param label The stored label.
+   * @param buffer The buffer holding the candidate label.
+   * @param start The index of the first character of the candidate.
+   * @param length The number of characters in the candidate.
+   * @return If the characters are the same.
+   */
+  private static boolean matches(
+      final String label, final char[] buffer, final int start, final int length) {
+    if (label.length() != length) {
+      return false;
+    }
+
+    for (int i = 0; i < length; i++) {
+      if (label.charAt(i) != buffer[start + i]) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /** Doubles the capacity of the table and re-inserts every label. */
+  private void grow() {
+    final String[] oldLabels = labels;
+    final int[] oldIds = ids;
+    labels = new String[oldLabels.length * 2];
+    ids = new int[oldIds.length * 2];
+    final int mask = labels.length - 1;
+
+    for (int i = 0; i < oldLabels.length; i++) {
+      if (oldLabels[i] != null) {
+        int slot = mix(oldLabels[i].hashCode()) & mask;
+
+        while (labels[slot] != null) {
+          slot = (slot + 1) & mask;
+        }
+
+        labels[slot] = oldLabels[i];
+        ids[slot] = oldIds[i];
+      }
+    }
+  }
+
+  /**
+   * Spreads the bits of a string hash code, so similar labels land in different slots.
+   *
+   * @param hash The hash code.
+   * @return The mixed hash code.
+   */
+  private static int mix(final int hash) {
+    final int h = hash * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+}
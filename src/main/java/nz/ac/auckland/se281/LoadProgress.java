@@ -0,0 +1,183 @@
+package nz.ac.auckland.se281;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CancellationException;
+import nz.ac.auckland.se281.datastructures.GraphBuilder;
+
+/**
+ * The progress of a graph being loaded, published by the loading thread and read by any other.
+ *
+ * <p>The loading thread reports how far it has got with {@link #update(long, GraphBuilder)}, which
+ * also stops the load by throwing a {@link CancellationException} once {@link #cancel()} has been
+ * called from another thread.
+ */
+class LoadProgress {
+  /** The phases of a load, in the order they happen. */
+  enum Phase {
+    PARSING("parsing"),
+    BUILDING("building indexes"),
+    DONE("done");
+
+    private final String description;
+
+    /**
+     * Creates a new phase.
+     *
+     * @param description The description shown to the user.
+     */
+    private Phase(final String description) {
+      this.description = description;
+    }
+
+    @Override
+    public String toString() {
+      return description;
+    }
+  }
+
+  private final long startNanos = System.nanoTime();
+
+  // When each phase was entered, or zero if it has not been yet.
+  private final long[] enteredNanos = new long[Phase.values().length];
+
+  private volatile Phase phase = Phase.PARSING;
+
+  private volatile long bytesRead;
+
+  private volatile long edgesAdded;
+
+  private volatile boolean cancelled;
+
+  /** Creates the progress of a load that is starting now. */
+  LoadProgress() {
+    enteredNanos[Phase.PARSING.ordinal()] = startNanos;
+  }
+
+  /**
+   * Records how far the load has got. Only the loading thread should call this.
+   *
+   * @param bytes The number of bytes read so far.
+   * @param builder The builder the graph is being loaded into.
+   * @throws CancellationException If the load has been cancelled.
+   */
+  void update(final long bytes, final GraphBuilder<String> builder) {
+    bytesRead = bytes;
+    edgesAdded = builder.edgeCount();
+    checkCancelled();
+  }
+
+  /**
+   * Moves the load on to a new phase.
+   *
+   * @param next The phase the load is now in.
+   * @throws CancellationException If the load has been cancelled.
+   */
+  void enter(final Phase next) {
+    checkCancelled();
+    enteredNanos[next.ordinal()] = System.nanoTime();
+    phase = next;
+  }
+
+  /** Stops the load the next time the loading thread reports its progress. */
+  void cancel() {
+    cancelled = true;
+  }
+
+  /**
+   * Throws if the load has been cancelled.
+   *
+   * @throws CancellationException If the load has been cancelled.
+   */
+  void checkCancelled() {
+    if (cancelled) {
+      throw new CancellationException("the load was cancelled");
+    }
+  }
+
+  /**
+   * Gets the phase the load is in.
+   *
+   * @return The phase.
+   */
+  Phase getPhase() {
+    return phase;
+  }
+
+  /**
+   * Gets how long a finished phase took. The times are only safe to read from another thread once
+   * the load is done.
+   *
+   * @param finished The phase.
+   * @return The time in nanoseconds, or zero if the phase has not finished.
+   */
+  long getPhaseNanos(final Phase finished) {
+    final int next = finished.ordinal() + 1;
+
+    if (next >= enteredNanos.length || enteredNanos[next] == 0) {
+      return 0;
+    }
+
+    return enteredNanos[next] - enteredNanos[finished.ordinal()];
+  }
+
+  /**
+   * Gets the number of bytes read so far.
+   *
+   * @return The number of bytes.
+   */
+  long getBytesRead() {
+    return bytesRead;
+  }
+
+  /**
+   * Gets the number of distinct edges added so far.
+   *
+   * @return The number of edges.
+   */
+  long getEdgesAdded() {
+    return edgesAdded;
+  }
+
+  /**
+   * Gets the time since the load started.
+   *
+   * @return The elapsed time in milliseconds.
+   */
+  long getElapsedMillis() {
+    return (System.nanoTime() - startNanos) / 1_000_000;
+  }
+
+  /**
+   * Wraps a stream so every read is reported to this progress.
+   *
+   * @param input The stream being loaded from.
+   * @param builder The builder the graph is being loaded into.
+   * @return The wrapped stream.
+   */
+  InputStream track(final InputStream input, final GraphBuilder<String> builder) {
+    return new FilterInputStream(input) {
+      private long count;
+
+      @Override
+      public int read() throws IOException {
+        final int b = super.read();
+        if (b >= 0) {
+          update(++count, builder);
+        }
+        return b;
+      }
+
+      @Override
+      public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+        final int read = super.read(buffer, offset, length);
+        if (read > 0) {
+          count += read;
+          update(count, builder);
+        }
+        return read;
+      }
+    };
+  }
+}
@@ -1,7 +1,21 @@
 package nz.ac.auckland.se281;
 
+import java.io.BufferedReader;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import nz.ac.auckland.se281.datastructures.GraphGenerator;
 
 /**
  * The entry point of the graph calculator command line interface.
@@ -11,8 +25,31 @@ import java.util.Scanner;
 public class Main {
   private static final String COMMAND_PREFIX = "graph-calculator> ";
 
+  /**
+   * Run the command line interface. With {@code --script <file>}, or when input is piped in rather
+   * than typed, the commands are run as a script without a prompt or help menu. {@code
+   * --interactive} always prompts for commands. Any other arguments are rejected.
+   *
+   * @param args The command line arguments.
+   */
   public static void main(final String[] args) {
-    new Main(new Scanner(System.in)).start();
+    if (args.length == 2 && args[0].equals("--script")) {
+      try {
+        new ScriptRunner(Files.readAllLines(Path.of(args[1]))).run();
+      } catch (IOException e) {
+        System.out.println(MessageCli.SCRIPT_NOT_READABLE.getMessage(args[1], e.toString()));
+      }
+    } else if (args.length == 1 && args[0].equals("--interactive")) {
+      new Main(new Scanner(System.in)).start();
+    } else if (args.length > 0) {
+      System.out.println(MessageCli.INVALID_ARGUMENTS.getMessage(String.join(" ", args)));
+    } else if (System.console() == null) {
+      final BufferedReader reader =
+          new BufferedReader(new InputStreamReader(System.in, Charset.defaultCharset()));
+      new ScriptRunner(reader.lines().collect(Collectors.toList())).run();
+    } else {
+      new Main(new Scanner(System.in)).start();
+    }
   }
 
   /**
@@ -29,7 +66,13 @@ public class Main {
       // Add extra padding to vertically align the argument counts.
       sb.append("\t".repeat(command.calculatePaddingSize()));
 
-      if (command.getNumArgs() > 0) {
+      if (command.getNumOptionalArgs() > 0) {
+        sb.append("[")
+            .append(command.getNumArgs())
+            .append("-")
+            .append(command.getNumArgs() + command.getNumOptionalArgs())
+            .append(" arguments]");
+      } else if (command.getNumArgs() > 0) {
         sb.append("[").append(command.getNumArgs()).append(" arguments]");
       } else {
         sb.append("[no args]");
@@ -44,28 +87,221 @@ public class Main {
 
   private final Scanner scanner;
 
+  private final GraphCache cache;
+
+  private final ResultWriter console;
+
+  private final Metrics metrics;
+
+  // Background loads run one at a time, on a daemon thread so they never keep the program open.
+  private final ExecutorService loader =
+      Executors.newSingleThreadExecutor(
+          task -> {
+            final Thread thread = new Thread(task, "graph-loader");
+            thread.setDaemon(true);
+            return thread;
+          });
+
   private GraphCalculator calculator;
 
+  private BackgroundLoad pending;
+
+  private ResultWriter out;
+
+  // The time the current command has spent in phases recorded as it ran, such as parsing.
+  private long phaseNanos;
+
   /**
    * Create a new command line interface.
    *
    * @param scanner The scanner to read user input from.
    */
   public Main(final Scanner scanner) {
+    this(
+        scanner, ResultWriter.console(), GraphCache.withDefaultBudget(), Metrics.fromProperties());
+  }
+
+  /**
+   * Create a new session that runs a script of commands, without reading from the user.
+   *
+   * @param console Where to write messages, and results unless they are sent elsewhere.
+   * @param cache The cache of loaded graphs, which can be shared with other sessions.
+   * @param metrics Where to record how long commands take, which can be shared with other
+   *     sessions.
+   */
+  Main(final ResultWriter console, final GraphCache cache, final Metrics metrics) {
+    this(null, console, cache, metrics);
+  }
+
+  /**
+   * Create a new session.
+   *
+   * @param scanner The scanner to read user input from, or null if there is no user.
+   * @param console Where to write messages, and results unless they are sent elsewhere.
+   * @param cache The cache of loaded graphs.
+   * @param metrics Where to record how long commands take.
+   */
+  private Main(
+      final Scanner scanner,
+      final ResultWriter console,
+      final GraphCache cache,
+      final Metrics metrics) {
     this.scanner = scanner;
+    this.console = console;
+    this.cache = cache;
+    this.metrics = metrics;
+    this.out = console;
   }
 
   /** Process commands from the user for the graph calculator command line interface. */
   public void start() {
-    System.out.println(help());
+    console.println(help());
+    console.flush();
 
     String command;
+    boolean running;
 
     // Prompt and process commands until the exit command.
     do {
-      System.out.print(COMMAND_PREFIX);
+      console.print(COMMAND_PREFIX);
+      console.flush();
       command = scanner.nextLine().trim();
-    } while (processCommand(command));
+      running = processCommand(command);
+
+      // Results are buffered, so hand them over before prompting for the next command.
+      flushResults();
+    } while (running);
+  }
+
+  /**
+   * Run a script of commands, without a prompt or help menu, until the end of the script or an
+   * exit command. Output is only handed over as the buffers fill and once the script is done, even
+   * if a command fails, so the results before it are never lost.
+   *
+   * @param commands The commands to run, one per line.
+   */
+  void run(final List<String> commands) {
+    try {
+      for (final String command : commands) {
+        if (!processCommand(command)) {
+          break;
+        }
+      }
+
+      // Stop anything still loading.
+      cancelBackgroundLoad();
+    } finally {
+      // Hand over the rest of the output.
+      loader.shutdownNow();
+      if (out != console) {
+        out.close();
+        out = console;
+      }
+      console.flush();
+    }
+  }
+
+  /**
+   * Find the command a line of input starts with.
+   *
+   * @param input The line of input.
+   * @return The command, or null if the line does not start with a command.
+   */
+  static Command parseCommand(final String input) {
+    // Allow any case, and dashes to be used instead of underscores.
+    final String commandStr = input.trim().split(" ")[0].toUpperCase().replaceAll("-", "_");
+
+    try {
+      // Command names correspond to the enum names.
+      return Command.valueOf(commandStr);
+    } catch (final Exception e) {
+      return null;
+    }
+  }
+
+  /**
+   * Write the metrics to the file they are exported to, if there is one.
+   *
+   * @param metrics The metrics.
+   * @param console Where to report if they were written.
+   */
+  static void exportMetrics(final Metrics metrics, final ResultWriter console) {
+    if (metrics.getExport() == null) {
+      return;
+    }
+
+    try {
+      metrics.export();
+      console.println(MessageCli.METRICS_EXPORTED.getMessage(metrics.getExport().toString()));
+    } catch (IOException e) {
+      console.println(
+          MessageCli.METRICS_NOT_WRITABLE.getMessage(
+              metrics.getExport().toString(), e.getMessage()));
+    }
+  }
+
+  /**
+   * Execute a command entered by the user and determine if more commands are expected, recording
+   * how long it took if metrics are on.
+   *
+   * @param input The command entered by the user.
+   * @return If the program should continue to wait for another command.
+   */
+  private boolean processCommand(final String input) {
+    // Swap in a graph that has finished loading in the background before running the command.
+    finishBackgroundLoad();
+
+    final Command command = parseCommand(input);
+
+    if (!metrics.isEnabled() || command == null) {
+      return executeOrClose(input);
+    }
+
+    final long startAllocated = Metrics.allocatedBytes();
+    final long startWrite = writeNanos();
+    final long start = System.nanoTime();
+    phaseNanos = 0;
+
+    final boolean running = executeOrClose(input);
+
+    // Results are only handed to the console between commands, so count that as output too.
+    if (scanner != null) {
+      flushResults();
+    }
+
+    final long elapsed = System.nanoTime() - start;
+    final long output = Math.max(0, writeNanos() - startWrite);
+    final long allocated = startAllocated < 0 ? -1 : Metrics.allocatedBytes() - startAllocated;
+
+    metrics.recordCommand(command, elapsed, allocated);
+    metrics.recordPhase(Metrics.Phase.OUTPUT, output);
+    metrics.recordPhase(Metrics.Phase.COMPUTE, elapsed - output - phaseNanos);
+
+    return running;
+  }
+
+  /**
+   * Execute a command entered by the user, closing the open graph if its snapshot turns out to be
+   * corrupt. A snapshot only reads its edges the first time a command needs them, so the damage is
+   * found here rather than when it was opened.
+   *
+   * @param input The command entered by the user.
+   * @return If the program should continue to wait for another command.
+   */
+  private boolean executeOrClose(final String input) {
+    try {
+      return execute(input);
+    } catch (final UncheckedIOException e) {
+      if (calculator == null || calculator.getSnapshotName() == null) {
+        throw e;
+      }
+      print(
+          MessageCli.SNAPSHOT_NOT_READABLE,
+          calculator.getSnapshotName(),
+          e.getCause().getMessage());
+      calculator = null;
+      return true;
+    }
   }
 
   /**
@@ -74,7 +310,7 @@ public class Main {
    * @param input The command entered by the user.
    * @return If the program should continue to wait for another command.
    */
-  private boolean processCommand(String input) {
+  private boolean execute(String input) {
     // Remove whitespace at the beginning and end of the input.
     input = input.trim();
 
@@ -83,21 +319,22 @@ public class Main {
     // Allow any case, and dashes to be used instead of underscores.
     final String commandStr = args[0].toUpperCase().replaceAll("-", "_");
 
-    final Command command;
+    final Command command = parseCommand(input);
 
-    try {
-      // Command names correspond to the enum names.
-      command = Command.valueOf(commandStr);
-    } catch (final Exception e) {
-      MessageCli.COMMAND_NOT_FOUND.printMessage(commandStr);
+    if (command == null) {
+      print(MessageCli.COMMAND_NOT_FOUND, commandStr);
       return true;
     }
 
     // Check that the correct number of arguments were provided.
     if (!checkArgs(command, args)) {
-      final String numCommandArgs = String.valueOf(command.getNumArgs());
-      final String plural = command.getNumArgs() > 1 ? "s" : "";
-      MessageCli.WRONG_ARGUMENT_COUNT.printMessage(numCommandArgs, plural, commandStr);
+      final int maxArgs = command.getNumArgs() + command.getNumOptionalArgs();
+      final String numCommandArgs =
+          command.getNumOptionalArgs() > 0
+              ? command.getNumArgs() + " to " + maxArgs
+              : String.valueOf(command.getNumArgs());
+      final String plural = maxArgs > 1 || command.getNumOptionalArgs() > 0 ? "s" : "";
+      print(MessageCli.WRONG_ARGUMENT_COUNT, numCommandArgs, plural, commandStr);
       return true;
     }
 
@@ -106,9 +343,17 @@ public class Main {
     // or get help if there is no file.
     if (calculator == null
         && command != Command.OPEN_FILE
+        && command != Command.OPEN_SNAPSHOT
+        && command != Command.OPEN_FILE_ASYNC
+        && command != Command.LOAD_STATUS
+        && command != Command.CANCEL_LOAD
+        && command != Command.SET_OUTPUT
+        && command != Command.ANALYZE_ALL
+        && command != Command.GENERATE
+        && command != Command.METRICS
         && command != Command.EXIT
         && command != Command.HELP) {
-      MessageCli.FILE_NOT_OPEN.printMessage();
+      print(MessageCli.FILE_NOT_OPEN);
       return true;
     }
 
@@ -116,59 +361,148 @@ public class Main {
       case OPEN_FILE:
         final String filename = args[1];
 
+        // Opening a file directly replaces anything still loading in the background.
+        cancelBackgroundLoad();
+        forgetGraphInScript();
+
+        try {
+          final LoadProgress progress = new LoadProgress();
+
+          // Reopening a file that has not changed reuses the graph it was loaded into.
+          calculator =
+              cache.open(
+                  GraphCalculator.resolve(filename),
+                  () -> new GraphCalculator(filename, progress));
+          recordLoad(progress);
+          print(MessageCli.OPENED_FILE_SUCCESSFULLY, filename);
+        } catch (FileNotFoundException e) {
+          print(MessageCli.FILE_NOT_FOUND, filename);
+        } catch (IOException e) {
+          print(MessageCli.FILE_NOT_READABLE, filename, e.getMessage());
+        }
+        break;
+      case SAVE_SNAPSHOT:
+        try {
+          calculator.saveSnapshot(args[1]);
+          print(MessageCli.SNAPSHOT_SAVED, args[1]);
+        } catch (IOException e) {
+          print(MessageCli.SNAPSHOT_NOT_WRITABLE, args[1], e.getMessage());
+        }
+        break;
+      case OPEN_SNAPSHOT:
+        cancelBackgroundLoad();
+        forgetGraphInScript();
+
         try {
-          calculator = new GraphCalculator(filename);
-          MessageCli.OPENED_FILE_SUCCESSFULLY.printMessage(filename);
+          calculator = GraphCalculator.fromSnapshot(args[1]);
+          print(MessageCli.OPENED_FILE_SUCCESSFULLY, args[1]);
+
+          if (calculator.isStale()) {
+            print(MessageCli.SNAPSHOT_STALE, args[1]);
+          }
         } catch (FileNotFoundException e) {
-          MessageCli.FILE_NOT_FOUND.printMessage(filename);
+          print(MessageCli.FILE_NOT_FOUND, args[1]);
+        } catch (IOException e) {
+          print(MessageCli.SNAPSHOT_NOT_READABLE, args[1], e.getMessage());
+        }
+        break;
+      case OPEN_FILE_ASYNC:
+        if (pending != null) {
+          print(MessageCli.LOAD_ALREADY_RUNNING, pending.getFilename());
+        } else {
+          pending = new BackgroundLoad(loader, cache, args[1]);
+          print(MessageCli.LOAD_STARTED, args[1]);
         }
         break;
+      case LOAD_STATUS:
+        if (pending == null) {
+          print(MessageCli.LOAD_NOT_RUNNING);
+        } else {
+          final LoadProgress progress = pending.getProgress();
+          print(
+              MessageCli.LOAD_STATUS,
+              pending.getFilename(),
+              progress.getPhase().toString(),
+              String.valueOf(progress.getBytesRead()),
+              String.valueOf(progress.getEdgesAdded()),
+              String.valueOf(progress.getElapsedMillis()));
+        }
+        break;
+      case CANCEL_LOAD:
+        if (pending == null) {
+          print(MessageCli.LOAD_NOT_RUNNING);
+        } else {
+          cancelBackgroundLoad();
+        }
+        break;
+      case SET_OUTPUT:
+        setOutput(args[1]);
+        break;
+      case ANALYZE_ALL:
+        analyzeAll(args[1]);
+        break;
+      case GENERATE:
+        generate(args);
+        break;
       case INFO:
-        calculator.printInfo();
+        calculator.printInfo(out);
         break;
       case LIST_VERTICIES_EDGES:
-        calculator.printVerticiesEdges();
+        calculator.printVerticiesEdges(out);
         break;
       case LIST_ROOT_VERTICIES:
-        calculator.printRoots();
+        calculator.printRoots(out);
         break;
       case CHECK_REFLEXIVITY:
-        calculator.printReflexitivity();
+        calculator.printReflexitivity(out);
         break;
       case CHECK_SYMMETRY:
-        calculator.printSymmetry();
+        calculator.printSymmetry(out);
         break;
       case CHECK_TRANSITIVITY:
-        calculator.printTransitivity();
+        calculator.printTransitivity(out);
         break;
       case CHECK_ANTISYMMETRY:
-        calculator.printAntiSymmetry();
+        calculator.printAntiSymmetry(out);
         break;
       case CHECK_EQUIVALENCE:
-        calculator.printEquivalence();
+        calculator.printEquivalence(out);
         break;
       case COMPUTE_EQUIVALENCE:
-        calculator.printEquivalenceClass(args[1]);
+        calculator.printEquivalenceClass(out, args[1]);
         break;
-      case GRAPH_SEARCH_IBFS:
-        calculator.printIterativeBreadthFirstSearch();
+      case LIST_EQUIVALENCE_CLASSES:
+        calculator.printEquivalenceClasses(out);
         break;
+      case GRAPH_SEARCH_IBFS:
       case GRAPH_SEARCH_IDFS:
-        calculator.printDepthFirstSearch();
-        break;
       case GRAPH_SEARCH_RBFS:
-        calculator.printRecursiveBreadthFirstSearch();
-        break;
       case GRAPH_SEARCH_RDFS:
-        calculator.printRecursiveDepthFirstSearch();
+        search(command, args);
+        break;
+      case METRICS:
+        if (metrics.isEnabled()) {
+          metrics.print(out);
+        } else {
+          print(MessageCli.METRICS_OFF);
+        }
         break;
       case EXIT:
-        MessageCli.END.printMessage();
+        cancelBackgroundLoad();
+        loader.shutdownNow();
+        setOutput("-");
+
+        // A script exports once every session sharing its metrics is done.
+        if (scanner != null) {
+          exportMetrics(metrics, console);
+        }
+
+        print(MessageCli.END);
 
         // Signal that the program should exit.
         return false;
       case HELP:
-        System.out.println(help());
+        console.println(help());
         break;
     }
 
@@ -176,6 +510,270 @@ public class Main {
     return true;
   }
 
+  /**
+   * Replace the open graph with the one loading in the background, if it has finished. A load that
+   * failed is reported instead.
+   */
+  private void finishBackgroundLoad() {
+    if (pending == null || !pending.isDone()) {
+      return;
+    }
+
+    final BackgroundLoad finished = pending;
+    pending = null;
+
+    try {
+      calculator = finished.get();
+      print(MessageCli.OPENED_FILE_SUCCESSFULLY, finished.getFilename());
+    } catch (FileNotFoundException e) {
+      print(MessageCli.FILE_NOT_FOUND, finished.getFilename());
+    } catch (IOException e) {
+      print(MessageCli.FILE_NOT_READABLE, finished.getFilename(), e.getMessage());
+    } catch (CancellationException e) {
+      // A cancelled load has already been reported.
+    }
+  }
+
+  /**
+   * Send the results of later commands to a file, or back to the console.
+   *
+   * @param target The file to write to, or "-" for the console.
+   */
+  private void setOutput(final String target) {
+    final ResultWriter next;
+
+    if (target.equals("-")) {
+      next = console;
+    } else {
+      try {
+        next = ResultWriter.file(Path.of(target));
+      } catch (IOException e) {
+        print(MessageCli.OUTPUT_NOT_WRITABLE, target, e.getMessage());
+        return;
+      }
+    }
+
+    final ResultWriter previous = out;
+
+    if (previous != console) {
+      previous.close();
+    }
+
+    out = next;
+
+    // Staying on the console, such as on exit, is silent.
+    if (next != previous) {
+      print(MessageCli.OUTPUT_SET, out.getName());
+    }
+  }
+
+  /** Hand buffered results to their target, going back to the console if the target failed. */
+  private void flushResults() {
+    if (!out.flush()) {
+      print(MessageCli.OUTPUT_NOT_WRITABLE, out.getName(), "write failed");
+      out.close();
+      out = console;
+    }
+
+    console.flush();
+  }
+
+  /**
+   * Print a message to the console after filling in its template.
+   *
+   * @param message The message to print.
+   * @param args The arguments to fill in the template.
+   */
+  private void print(final MessageCli message, final String... args) {
+    console.println(message.getMessage(args));
+  }
+
+  /**
+   * Record how long a graph took to parse and build, if it was loaded rather than found in the
+   * cache.
+   *
+   * @param progress The progress of the load.
+   */
+  private void recordLoad(final LoadProgress progress) {
+    if (!metrics.isEnabled() || progress.getPhase() != LoadProgress.Phase.DONE) {
+      return;
+    }
+
+    final long parse = progress.getPhaseNanos(LoadProgress.Phase.PARSING);
+    final long build = progress.getPhaseNanos(LoadProgress.Phase.BUILDING);
+
+    metrics.recordPhase(Metrics.Phase.PARSE, parse);
+    metrics.recordPhase(Metrics.Phase.BUILD, build);
+    phaseNanos += parse + build;
+  }
+
+  /**
+   * Get the total time spent writing to the console and the current output.
+   *
+   * @return The time in nanoseconds.
+   */
+  private long writeNanos() {
+    return console.getWriteNanos() + (out == console ? 0 : out.getWriteNanos());
+  }
+
+  /**
+   * In a script, close the open graph before opening another, so if the open fails the commands
+   * after it report that no file is open instead of running against the previous graph.
+   */
+  private void forgetGraphInScript() {
+    if (scanner == null) {
+      calculator = null;
+    }
+  }
+
+  /** Cancel the graph loading in the background, if there is one. */
+  private void cancelBackgroundLoad() {
+    if (pending != null) {
+      pending.cancel();
+      print(MessageCli.LOAD_CANCELLED, pending.getFilename());
+      pending = null;
+    }
+  }
+
+  /**
+   * Check every property of every graph in a directory, writing a table of the results.
+   *
+   * @param directory The directory in the test case folder.
+   */
+  private void analyzeAll(final String directory) {
+    // Only the part of the budget the cache is not using when the analysis starts, since both hold
+    // graphs at once.
+    final DirectoryAnalyzer analyzer =
+        new DirectoryAnalyzer(Path.of(directory), cache.remainingBudget());
+    final long start = System.nanoTime();
+
+    try {
+      analyzer.analyze(out);
+    } catch (FileNotFoundException e) {
+      print(MessageCli.DIRECTORY_NOT_FOUND, directory);
+      return;
+    } catch (IOException e) {
+      print(MessageCli.DIRECTORY_NOT_READABLE, directory, e.getMessage());
+      return;
+    }
+
+    print(
+        MessageCli.ANALYZED_DIRECTORY,
+        String.valueOf(analyzer.getFileCount()),
+        directory,
+        String.valueOf((System.nanoTime() - start) / 1_000_000),
+        String.valueOf(analyzer.getFailedCount()));
+  }
+
+  /**
+   * Generate a graph, and either open it or write it to a file in the test case folder.
+   *
+   * @param args The arguments provided by the user: the shape, number of vertices, number of
+   *     edges, seed, and optionally the file.
+   */
+  private void generate(final String[] args) {
+    final boolean opens = args.length != 6;
+
+    if (opens) {
+      // Opening a generated graph replaces the open graph, like opening a file, so a script does
+      // not carry on with the old graph when the arguments are not valid.
+      cancelBackgroundLoad();
+      forgetGraphInScript();
+    }
+
+    final GraphGenerator.Shape shape;
+
+    try {
+      shape = GraphGenerator.Shape.valueOf(args[1].toUpperCase().replaceAll("-", "_"));
+    } catch (IllegalArgumentException e) {
+      print(
+          MessageCli.INVALID_SHAPE,
+          args[1],
+          Arrays.toString(GraphGenerator.Shape.values()).toLowerCase());
+      return;
+    }
+
+    final GraphGenerator generator;
+
+    try {
+      generator =
+          new GraphGenerator(
+              shape, Integer.parseInt(args[2]), Integer.parseInt(args[3]), Long.parseLong(args[4]));
+    } catch (IllegalArgumentException e) {
+      // Also catches numbers that could not be parsed.
+      print(MessageCli.INVALID_GENERATOR_ARGUMENTS, e.getMessage());
+      return;
+    }
+
+    final String name = shape.toString().toLowerCase();
+
+    if (!opens) {
+      try {
+        final long edges = new GraphWriter(GraphCalculator.resolve(args[5])).write(generator);
+        print(MessageCli.GENERATED_FILE, name, String.valueOf(edges), args[5]);
+      } catch (IOException e) {
+        print(MessageCli.GENERATE_NOT_WRITABLE, args[5], e.getMessage());
+      }
+      return;
+    }
+
+    final String label = String.join("_", name, args[2], args[3], args[4]);
+    calculator = new GraphCalculator(label, generator.build());
+    print(
+        MessageCli.GENERATED_GRAPH,
+        name,
+        String.valueOf(calculator.getGraph().vertexCount()),
+        String.valueOf(calculator.getGraph().edgeCount()));
+  }
+
+  /**
+   * Print the order of a graph search, or only the start of it if a limit was given.
+   *
+   * @param command The search command.
+   * @param args The arguments provided by the user.
+   */
+  private void search(final Command command, final String[] args) {
+    if (args.length == 1) {
+      switch (command) {
+        case GRAPH_SEARCH_IBFS:
+          calculator.printIterativeBreadthFirstSearch(out);
+          break;
+        case GRAPH_SEARCH_IDFS:
+          calculator.printDepthFirstSearch(out);
+          break;
+        case GRAPH_SEARCH_RBFS:
+          calculator.printRecursiveBreadthFirstSearch(out);
+          break;
+        default:
+          calculator.printRecursiveDepthFirstSearch(out);
+          break;
+      }
+      return;
+    }
+
+    final int limit;
+
+    try {
+      limit = Integer.parseInt(args[1]);
+    } catch (NumberFormatException e) {
+      print(MessageCli.INVALID_LIMIT, args[1]);
+      return;
+    }
+
+    if (limit < 0) {
+      print(MessageCli.INVALID_LIMIT, args[1]);
+      return;
+    }
+
+    // The recursive searches visit in the same order as the iterative ones, so every search can
+    // stop early by running lazily.
+    if (command == Command.GRAPH_SEARCH_IBFS || command == Command.GRAPH_SEARCH_RBFS) {
+      calculator.printBreadthFirstSearch(out, limit);
+    } else {
+      calculator.printDepthFirstSearch(out, limit);
+    }
+  }
+
   /**
    * Check that the correct number of arguments were provided for the command.
    *
@@ -184,6 +782,9 @@ public class Main {
    * @return If the correct number of arguments were provided.
    */
   private boolean checkArgs(final Command command, final String[] args) {
-    return command.getNumArgs() == args.length - 1;
+    final int given = args.length - 1;
+
+    return given >= command.getNumArgs()
+        && given <= command.getNumArgs() + command.getNumOptionalArgs();
   }
 }
@@ -15,8 +15,44 @@ public enum MessageCli {
   OPENED_FILE_SUCCESSFULLY("Successfully opened graph from file %s"),
   FILE_NOT_OPEN("Error: no valid file open"),
   FILE_NOT_FOUND("Error: file '%s' not found in `testcases` folder"),
+  FILE_NOT_READABLE("Error: file '%s' is not a valid graph (%s)"),
   INFO("File name: %s"),
 
+  INVALID_LIMIT("Error: '%s' is not a valid limit, expected a whole number of at least 0"),
+
+  SCRIPT_NOT_READABLE("Error: could not read script '%s' (%s)"),
+
+  INVALID_ARGUMENTS("Error: unknown arguments '%s', expected --script <file> or --interactive"),
+
+  DIRECTORY_NOT_FOUND("Error: directory '%s' not found in `testcases` folder"),
+  DIRECTORY_NOT_READABLE("Error: could not list directory '%s' (%s)"),
+  ANALYZED_DIRECTORY("Analysed %s files from directory %s in %s ms, %s could not be loaded"),
+
+  GENERATED_GRAPH("Generated %s graph with %s vertices and %s edges"),
+  GENERATED_FILE("Wrote generated %s graph with %s edges to file %s"),
+  GENERATE_NOT_WRITABLE("Error: could not write generated graph to file '%s' (%s)"),
+  INVALID_SHAPE("Error: '%s' is not a graph shape, expected one of %s"),
+  INVALID_GENERATOR_ARGUMENTS("Error: could not generate graph (%s)"),
+
+  OUTPUT_SET("Writing results to %s"),
+  OUTPUT_NOT_WRITABLE("Error: could not write results to '%s' (%s)"),
+
+  LOAD_STARTED("Loading graph from file %s in the background"),
+  LOAD_STATUS("Loading graph from file %s: %s, %s bytes read, %s edges added, %s ms elapsed"),
+  LOAD_NOT_RUNNING("No graph is loading in the background"),
+  LOAD_ALREADY_RUNNING(
+      "Error: graph from file '%s' is still loading (run 'cancel_load' to stop it)"),
+  LOAD_CANCELLED("Cancelled loading graph from file %s"),
+
+  METRICS_OFF("Metrics are off (run with -Dgraphcalculator.metrics=true to record them)"),
+  METRICS_EXPORTED("Wrote metrics to file %s"),
+  METRICS_NOT_WRITABLE("Error: could not write metrics to file '%s' (%s)"),
+
+  SNAPSHOT_SAVED("Successfully saved snapshot to file %s"),
+  SNAPSHOT_NOT_WRITABLE("Error: could not save snapshot to file '%s' (%s)"),
+  SNAPSHOT_NOT_READABLE("Error: file '%s' is not a valid snapshot (%s)"),
+  SNAPSHOT_STALE("Warning: the source of snapshot '%s' has changed since it was saved"),
+
   GRAPH_REFLEXIVE("The graph is %sreflexive"),
   GRAPH_SYMMETRIC("The graph is %ssymmetric"),
   GRAPH_ANTI_SYMMETRIC("The graph is %santisymmetric"),
@@ -44,13 +80,22 @@ public enum MessageCli {
    * @return The filled message.
    */
   public String getMessage(final String... args) {
-    String tmpMessage = msg;
+    final StringBuilder sb = new StringBuilder(msg.length() + 16 * args.length);
+    int from = 0;
 
+    // Copy the template up to each "%s" in turn, so the arguments are never read as patterns.
     for (final String arg : args) {
-      tmpMessage = tmpMessage.replaceFirst("%s", arg);
+      final int at = msg.indexOf("%s", from);
+
+      if (at < 0) {
+        break;
+      }
+
+      sb.append(msg, from, at).append(arg);
+      from = at + 2;
     }
 
-    return tmpMessage;
+    return sb.append(msg, from, msg.length()).toString();
   }
 
   /**
@@ -0,0 +1,389 @@
+package nz.ac.auckland.se281;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Opt-in measurements of how long each command takes, how much it allocates, and how its time
+ * splits into phases, kept in {@link Histogram}s so recording stays cheap however many commands
+ * are run.
+ *
+ * <p>It is off unless {@link #ENABLED_PROPERTY} is true or {@link #EXPORT_PROPERTY} names a file to
+ * export to, and when it is off nothing is timed at all. Allocation is read from the {@link
+ * ThreadMXBean} of the thread running the command, so work handed to other threads, such as the
+ * chunks of a parallel parse, is not counted. It is safe to share between threads.
+ */
+class Metrics {
+  /** The system property that turns metrics on. */
+  static final String ENABLED_PROPERTY = "graphcalculator.metrics";
+
+  /**
+   * The system property that names the file to export metrics to on exit, as JSON if it ends in
+   * {@code .json} and CSV otherwise. Setting it also turns metrics on.
+   */
+  static final String EXPORT_PROPERTY = "graphcalculator.metrics.export";
+
+  private static final String CSV_HEADER =
+      "kind,name,count,p50_ns,p99_ns,max_ns,mean_ns,p50_alloc_bytes,p99_alloc_bytes,"
+          + "total_alloc_bytes";
+
+  private static final String ROW_FORMAT = "%-32s  %7s  %10s  %10s  %10s  %12s  %12s";
+
+  private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+  /** The phases the time of a command is split into. */
+  enum Phase {
+    PARSE("parse"),
+    BUILD("build"),
+    COMPUTE("compute"),
+    OUTPUT("output");
+
+    private final String description;
+
+    /**
+     * Creates a new phase.
+     *
+     * @param description The name of the phase shown to the user.
+     */
+    private Phase(final String description) {
+      this.description = description;
+    }
+
+    @Override
+    public String toString() {
+      return description;
+    }
+  }
+
+  private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+  private final boolean enabled;
+
+  private final Path export;
+
+  private final Map<Command, Histogram> latencies = new EnumMap<>(Command.class);
+
+  private final Map<Command, Histogram> allocations = new EnumMap<>(Command.class);
+
+  private final Map<Phase, Histogram> phases = new EnumMap<>(Phase.class);
+
+  /**
+   * Creates new metrics.
+   *
+   * @param enabled If anything should be recorded.
+   * @param export The file to export to on exit, or null to not export.
+   */
+  Metrics(final boolean enabled, final Path export) {
+    this.enabled = enabled || export != null;
+    this.export = export;
+
+    for (final Command command : Command.values()) {
+      latencies.put(command, new Histogram());
+      allocations.put(command, new Histogram());
+    }
+
+    for (final Phase phase : Phase.values()) {
+      phases.put(phase, new Histogram());
+    }
+  }
+
+  /**
+   * Creates metrics that are turned on and exported as set by {@link #ENABLED_PROPERTY} and {@link
+   * #EXPORT_PROPERTY}.
+   *
+   * @return The metrics.
+   */
+  static Metrics fromProperties() {
+    final String export = System.getProperty(EXPORT_PROPERTY, "").trim();
+
+    return new Metrics(
+        Boolean.getBoolean(ENABLED_PROPERTY), export.isEmpty() ? null : Path.of(export));
+  }
+
+  /**
+   * Checks if anything is being recorded.
+   *
+   * @return If metrics are on.
+   */
+  boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Gets the file to export to on exit.
+   *
+   * @return The file, or null if metrics are not exported.
+   */
+  Path getExport() {
+    return export;
+  }
+
+  /**
+   * Gets the number of bytes the current thread has allocated so far.
+   *
+   * @return The number of bytes, or -1 if the JVM cannot measure it.
+   */
+  static long allocatedBytes() {
+    if (THREADS instanceof com.sun.management.ThreadMXBean) {
+      final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+
+      if (threads.isThreadAllocatedMemoryEnabled()) {
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+      }
+    }
+
+    return -1;
+  }
+
+  /**
+   * Records a command that has finished.
+   *
+   * @param command The command.
+   * @param nanos How long it took, in nanoseconds.
+   * @param allocated How many bytes it allocated, or -1 if that is not known.
+   */
+  void recordCommand(final Command command, final long nanos, final long allocated) {
+    latencies.get(command).record(nanos);
+
+    if (allocated >= 0) {
+      allocations.get(command).record(allocated);
+    }
+  }
+
+  /**
+   * Records the time a command spent in one of its phases.
+   *
+   * @param phase The phase.
+   * @param nanos How long the phase took, in nanoseconds.
+   */
+  void recordPhase(final Phase phase, final long nanos) {
+    phases.get(phase).record(nanos);
+  }
+
+  /**
+   * Writes a table of the median and 99th percentile of every command and phase that has been
+   * recorded.
+   *
+   * @param out Where to write the table.
+   */
+  void print(final ResultWriter out) {
+    out.println(
+        String.format(
+            ROW_FORMAT,
+            "SERIES",
+            "COUNT",
+            "P50_MS",
+            "P99_MS",
+            "MAX_MS",
+            "P50_ALLOC_KB",
+            "P99_ALLOC_KB"));
+
+    for (final Command command : Command.values()) {
+      final Histogram latency = latencies.get(command);
+
+      if (latency.getCount() > 0) {
+        final Histogram allocation = allocations.get(command);
+        out.println(
+            String.format(
+                ROW_FORMAT,
+                "command " + command,
+                latency.getCount(),
+                millis(latency.getPercentile(0.5)),
+                millis(latency.getPercentile(0.99)),
+                millis(latency.getMax()),
+                kilobytes(allocation, 0.5),
+                kilobytes(allocation, 0.99)));
+      }
+    }
+
+    for (final Phase phase : Phase.values()) {
+      final Histogram latency = phases.get(phase);
+
+      if (latency.getCount() > 0) {
+        out.println(
+            String.format(
+                ROW_FORMAT,
+                "phase " + phase,
+                latency.getCount(),
+                millis(latency.getPercentile(0.5)),
+                millis(latency.getPercentile(0.99)),
+                millis(latency.getMax()),
+                "-",
+                "-"));
+      }
+    }
+  }
+
+  /**
+   * Writes every command and phase that has been recorded to the export file.
+   *
+   * @throws IOException If the file could not be written.
+   */
+  void export() throws IOException {
+    final boolean json = export.getFileName().toString().toLowerCase().endsWith(".json");
+
+    try (Writer writer = Files.newBufferedWriter(export, StandardCharsets.UTF_8)) {
+      if (json) {
+        writeJson(writer);
+      } else {
+        writeCsv(writer);
+      }
+    }
+  }
+
+  /**
+   * Writes the metrics as a JSON object, with an array of commands and an array of phases.
+   *
+   * @param writer Where to write the JSON.
+   * @throws IOException If the JSON could not be written.
+   */
+  private void writeJson(final Writer writer) throws IOException {
+    writer.write("{\n  \"commands\": [");
+    String separator = "\n";
+
+    for (final Command command : Command.values()) {
+      final Histogram latency = latencies.get(command);
+
+      if (latency.getCount() > 0) {
+        final Histogram allocation = allocations.get(command);
+        writer.write(separator);
+        writer.write("    {\"name\": \"" + command + "\", " + jsonTimes(latency));
+
+        if (allocation.getCount() > 0) {
+          writer.write(
+              ", \"p50_alloc_bytes\": "
+                  + allocation.getPercentile(0.5)
+                  + ", \"p99_alloc_bytes\": "
+                  + allocation.getPercentile(0.99)
+                  + ", \"total_alloc_bytes\": "
+                  + allocation.getSum());
+        }
+
+        writer.write("}");
+        separator = ",\n";
+      }
+    }
+
+    writer.write("\n  ],\n  \"phases\": [");
+    separator = "\n";
+
+    for (final Phase phase : Phase.values()) {
+      final Histogram latency = phases.get(phase);
+
+      if (latency.getCount() > 0) {
+        writer.write(separator);
+        writer.write("    {\"name\": \"" + phase + "\", " + jsonTimes(latency) + "}");
+        separator = ",\n";
+      }
+    }
+
+    writer.write("\n  ]\n}\n");
+  }
+
+  /**
+   * Writes the metrics as CSV, with a row for every command and phase.
+   *
+   * @param writer Where to write the CSV.
+   * @throws IOException If the CSV could not be written.
+   */
+  private void writeCsv(final Writer writer) throws IOException {
+    writer.write(CSV_HEADER + "\n");
+
+    for (final Command command : Command.values()) {
+      final Histogram latency = latencies.get(command);
+
+      if (latency.getCount() > 0) {
+        final Histogram allocation = allocations.get(command);
+        writer.write("command," + command + "," + csvTimes(latency) + ",");
+
+        if (allocation.getCount() > 0) {
+          writer.write(
+              allocation.getPercentile(0.5)
+                  + ","
+                  + allocation.getPercentile(0.99)
+                  + ","
+                  + allocation.getSum());
+        } else {
+          writer.write(",,");
+        }
+
+        writer.write("\n");
+      }
+    }
+
+    for (final Phase phase : Phase.values()) {
+      final Histogram latency = phases.get(phase);
+
+      if (latency.getCount() > 0) {
+        writer.write("phase," + phase + "," + csvTimes(latency) + ",,,\n");
+      }
+    }
+  }
+
+  /**
+   * Formats the count and times of a histogram as JSON fields.
+   *
+   * @param latency The histogram of times in nanoseconds.
+   * @return The fields, without braces.
+   */
+  private static String jsonTimes(final Histogram latency) {
+    return "\"count\": "
+        + latency.getCount()
+        + ", \"p50_ns\": "
+        + latency.getPercentile(0.5)
+        + ", \"p99_ns\": "
+        + latency.getPercentile(0.99)
+        + ", \"max_ns\": "
+        + latency.getMax()
+        + ", \"mean_ns\": "
+        + latency.getMean();
+  }
+
+  /**
+   * Formats the count and times of a histogram as CSV fields.
+   *
+   * @param latency The histogram of times in nanoseconds.
+   * @return The fields, separated by commas.
+   */
+  private static String csvTimes(final Histogram latency) {
+    return latency.getCount()
+        + ","
+        + latency.getPercentile(0.5)
+        + ","
+        + latency.getPercentile(0.99)
+        + ","
+        + latency.getMax()
+        + ","
+        + latency.getMean();
+  }
+
+  /**
+   * Formats a time in milliseconds for the table.
+   *
+   * @param nanos The time in nanoseconds.
+   * @return The formatted time.
+   */
+  private static String millis(final long nanos) {
+    return String.format("%.3f", nanos / NANOS_PER_MILLI);
+  }
+
+  /**
+   * Formats a percentile of allocations in kilobytes for the table.
+   *
+   * @param allocation The histogram of allocations in bytes.
+   * @param fraction The percentile.
+   * @return The formatted size, or "-" if allocations were not measured.
+   */
+  private static String kilobytes(final Histogram allocation, final double fraction) {
+    return allocation.getCount() == 0
+        ? "-"
+        : String.valueOf(allocation.getPercentile(fraction) >> 10);
+  }
+}
@@ -0,0 +1,219 @@
+package nz.ac.auckland.se281;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+/**
+ * Where the results of commands are written, either the console, a file or memory.
+ *
+ * <p>Results are collected into a fixed size chunk and handed to the target a chunk at a time, so
+ * listing a large graph never builds its whole output in memory. Nothing reaches the target until
+ * the chunk is full or {@link #flush()} is called, which the command line does after every command.
+ * A writer to memory has no target, and keeps everything until its {@link #contents()} are taken.
+ */
+class ResultWriter {
+  private static final int CHUNK_SIZE = 1 << 16;
+
+  private static final String NEW_LINE = System.lineSeparator();
+
+  private final StringBuilder chunk = new StringBuilder(CHUNK_SIZE);
+
+  private final PrintStream target;
+
+  private final String name;
+
+  private final boolean closeable;
+
+  private long writeNanos;
+
+  /**
+   * Creates a new result writer.
+   *
+   * @param target The stream to hand each chunk to.
+   * @param name The name of the target shown to the user.
+   * @param closeable If the stream should be closed with the writer.
+   */
+  private ResultWriter(final PrintStream target, final String name, final boolean closeable) {
+    this.target = target;
+    this.name = name;
+    this.closeable = closeable;
+  }
+
+  /**
+   * Creates a result writer for the console, as it is when this is called.
+   *
+   * @return The result writer.
+   */
+  static ResultWriter console() {
+    return new ResultWriter(System.out, "the console", false);
+  }
+
+  /**
+   * Creates a result writer that keeps everything written to it in memory.
+   *
+   * @return The result writer.
+   */
+  static ResultWriter memory() {
+    return new ResultWriter(null, "memory", false);
+  }
+
+  /**
+   * Creates a result writer that replaces the contents of a file.
+   *
+   * @param file The file to write to.
+   * @return The result writer.
+   * @throws IOException If the file could not be opened.
+   */
+  static ResultWriter file(final Path file) throws IOException {
+    final PrintStream stream =
+        new PrintStream(
+            new BufferedOutputStream(new FileOutputStream(file.toFile()), CHUNK_SIZE),
+            false,
+            StandardCharsets.UTF_8);
+
+    return new ResultWriter(stream, file.toString(), true);
+  }
+
+  /**
+   * Gets the name of the target shown to the user.
+   *
+   * @return The name.
+   */
+  String getName() {
+    return name;
+  }
+
+  /**
+   * Gets the total time spent handing chunks to the target and flushing it.
+   *
+   * @return The time in nanoseconds.
+   */
+  long getWriteNanos() {
+    return writeNanos;
+  }
+
+  /**
+   * Writes some text.
+   *
+   * @param text The text to write.
+   * @return This writer.
+   */
+  ResultWriter print(final String text) {
+    chunk.append(text);
+
+    if (target != null && chunk.length() >= CHUNK_SIZE) {
+      final long start = System.nanoTime();
+      drain();
+      writeNanos += System.nanoTime() - start;
+    }
+
+    return this;
+  }
+
+  /**
+   * Writes a line of text.
+   *
+   * @param line The text to write, without the line separator.
+   */
+  void println(final String line) {
+    print(line).print(NEW_LINE);
+  }
+
+  /**
+   * Writes a collection as a line, in the same format as {@link java.util.AbstractCollection}
+   * uses, such as {@code [1, 2, 3]}. Elements that are themselves collections are written the same
+   * way.
+   *
+   * @param items The items to write.
+   */
+  void printList(final Iterable<?> items) {
+    printList(items.iterator(), Long.MAX_VALUE);
+  }
+
+  /**
+   * Writes the first items of an iterator as a line, in the same format as {@link
+   * #printList(Iterable)}. The iterator is not advanced past the last item written.
+   *
+   * @param items The items to write.
+   * @param limit The most items to write.
+   */
+  void printList(final Iterator<?> items, final long limit) {
+    appendList(items, limit);
+    print(NEW_LINE);
+  }
+
+  /**
+   * Writes the first items of an iterator without a line separator.
+   *
+   * @param items The items to write.
+   * @param limit The most items to write.
+   */
+  private void appendList(final Iterator<?> items, final long limit) {
+    print("[");
+
+    for (long written = 0; written < limit && items.hasNext(); written++) {
+      if (written > 0) {
+        print(", ");
+      }
+
+      final Object item = items.next();
+
+      if (item instanceof Iterable) {
+        appendList(((Iterable<?>) item).iterator(), Long.MAX_VALUE);
+      } else {
+        print(String.valueOf(item));
+      }
+    }
+
+    print("]");
+  }
+
+  /**
+   * Hands everything written so far to the target and flushes it.
+   *
+   * @return If the target has not failed to write anything.
+   */
+  boolean flush() {
+    if (target == null) {
+      return true;
+    }
+
+    final long start = System.nanoTime();
+    drain();
+    target.flush();
+    writeNanos += System.nanoTime() - start;
+
+    return !target.checkError();
+  }
+
+  /** Flushes the writer, and closes its target if it is a file. */
+  void close() {
+    flush();
+
+    if (closeable) {
+      target.close();
+    }
+  }
+
+  /**
+   * Gets everything written to a writer to memory.
+   *
+   * @return The text written.
+   */
+  String contents() {
+    return chunk.toString();
+  }
+
+  /** Hands the current chunk to the target. */
+  private void drain() {
+    if (chunk.length() > 0) {
+      target.print(chunk);
+      chunk.setLength(0);
+    }
+  }
+}
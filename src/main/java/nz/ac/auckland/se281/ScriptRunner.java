@@ -0,0 +1,170 @@
+package nz.ac.auckland.se281;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs a script of commands without a prompt or help menu, for jobs that pipe commands in rather
+ * than typing them.
+ *
+ * <p>The script is split into blocks, each starting at a command that opens a graph. When every
+ * block only works on the graph it opened, the blocks run at the same time, each in its own session
+ * writing to memory, and their output is printed in script order. Scripts that change state shared
+ * between blocks, such as where results are written, run one command after another instead.
+ *
+ * <p>In a script, a graph that fails to open leaves no file open, so the rest of its block never
+ * runs against the graph of an earlier block. This keeps the output the same either way.
+ */
+class ScriptRunner {
+  // Commands that start a new, independent block.
+  private static final Set<Command> OPENS = EnumSet.of(Command.OPEN_FILE, Command.OPEN_SNAPSHOT);
+
+  // Commands whose effects reach past the block they are in.
+  private static final Set<Command> SHARED =
+      EnumSet.of(
+          Command.SET_OUTPUT,
+          Command.SAVE_SNAPSHOT,
+          Command.OPEN_FILE_ASYNC,
+          Command.LOAD_STATUS,
+          Command.CANCEL_LOAD,
+          Command.GENERATE,
+          Command.METRICS);
+
+  private final List<String> commands;
+
+  private final GraphCache cache = GraphCache.withDefaultBudget();
+
+  // Shared by every block, so the metrics cover the whole script.
+  private final Metrics metrics = Metrics.fromProperties();
+
+  /**
+   * Creates a new script runner.
+   *
+   * @param lines The lines of the script. Blank lines and lines starting with {@code #} are
+   *     skipped, and nothing after the first exit command is run.
+   */
+  ScriptRunner(final List<String> lines) {
+    commands = new ArrayList<>();
+
+    for (final String line : lines) {
+      final String command = line.trim();
+
+      if (command.isEmpty() || command.startsWith("#")) {
+        continue;
+      }
+
+      commands.add(command);
+
+      if (Main.parseCommand(command) == Command.EXIT) {
+        break;
+      }
+    }
+  }
+
+  /** Runs the script, printing its output to the console. */
+  void run() {
+    final List<List<String>> blocks = split();
+
+    if (blocks.size() < 2 || !independent()) {
+      new Main(ResultWriter.console(), cache, metrics).run(commands);
+    } else {
+      runBlocks(blocks);
+    }
+
+    final ResultWriter console = ResultWriter.console();
+    Main.exportMetrics(metrics, console);
+    console.flush();
+  }
+
+  /**
+   * Runs the blocks of the script at the same time, printing their output in script order.
+   *
+   * @param blocks The blocks of the script.
+   */
+  private void runBlocks(final List<List<String>> blocks) {
+    final int threads = Math.min(blocks.size(), Runtime.getRuntime().availableProcessors());
+    final ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+    try {
+      final List<ResultWriter> outputs = new ArrayList<>();
+      final List<Future<?>> runs = new ArrayList<>();
+
+      for (final List<String> block : blocks) {
+        final ResultWriter output = ResultWriter.memory();
+        outputs.add(output);
+        runs.add(executor.submit(() -> new Main(output, cache, metrics).run(block)));
+      }
+
+      // Print each block as soon as it and every block before it are done. A block that failed
+      // still prints what it wrote before the failure.
+      for (int i = 0; i < runs.size(); i++) {
+        final Future<?> run = runs.get(i);
+
+        try {
+          run.get();
+        } finally {
+          if (run.isDone()) {
+            System.out.print(outputs.get(i).contents());
+          }
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      // Errors such as running out of memory are passed on as they are, as the sequential run does.
+      if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw new IllegalStateException("A block of the script failed", e.getCause());
+    } finally {
+      executor.shutdownNow();
+      System.out.flush();
+    }
+  }
+
+  /**
+   * Splits the script into blocks, starting a new block at every command that opens a graph.
+   *
+   * @return The blocks, in script order.
+   */
+  private List<List<String>> split() {
+    final List<List<String>> blocks = new ArrayList<>();
+    List<String> block = new ArrayList<>();
+
+    for (final String command : commands) {
+      if (OPENS.contains(Main.parseCommand(command)) && !block.isEmpty()) {
+        blocks.add(block);
+        block = new ArrayList<>();
+      }
+
+      block.add(command);
+    }
+
+    if (!block.isEmpty()) {
+      blocks.add(block);
+    }
+
+    return blocks;
+  }
+
+  /**
+   * Checks if the blocks of the script can run at the same time.
+   *
+   * @return If no command has effects that reach past its own block.
+   */
+  private boolean independent() {
+    for (final String command : commands) {
+      if (SHARED.contains(Main.parseCommand(command))) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+}
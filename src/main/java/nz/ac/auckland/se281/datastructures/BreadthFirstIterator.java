@@ -0,0 +1,51 @@
+package nz.ac.auckland.se281.datastructures;
+
+import java.util.List;
+
+/**
+ * A lazy breadth first search, visiting verticies in the same order as {@link
+ * Graph#iterativeBreadthFirstSearch()}.
+ *
+ * <p>Verticies are visited in the order they are discovered, so each call takes the next vertex
+ * off the queue and discovers its unvisited neighbours.
+ *
+ * @param <T> the type of each vertex.
+ */
+class BreadthFirstIterator<T> extends TraversalIterator<T> {
+
+  private final IntQueue queue = new IntQueue();
+
+  /**
+   * Constructor for BreadthFirstIterator.
+   *
+   * @param core the rows of the graph.
+   * @param verticies every vertex, indexed by its id.
+   * @param roots the ids of the roots, in the order the search starts from them.
+   */
+  BreadthFirstIterator(CompactGraph core, List<T> verticies, List<Integer> roots) {
+    super(core, verticies, roots);
+  }
+
+  @Override
+  protected int advance() {
+    // starting from the next root once everything reachable from the last one is visited
+    if (queue.isEmpty()) {
+      int root = nextUnvisitedRoot();
+      if (root < 0) {
+        return -1;
+      }
+      visited.set(root);
+      queue.enqueue(root);
+    }
+
+    int current = queue.dequeue();
+    for (int i = core.outStart(current); i < core.outEnd(current); i++) {
+      int destination = core.target(i);
+      if (!visited.get(destination)) {
+        visited.set(destination);
+        queue.enqueue(destination);
+      }
+    }
+    return current;
+  }
+}
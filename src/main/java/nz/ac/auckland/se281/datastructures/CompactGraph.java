@@ -0,0 +1,260 @@
+package nz.ac.auckland.se281.datastructures;
+
+import java.nio.IntBuffer;
+
+/**
+ * A compressed sparse row representation of a directed graph whose verticies are dense integer ids
+ * from {@code 0} to {@code vertexCount - 1}.
+ *
+ * <p>The outgoing neighbours of vertex {@code v} are {@code targets[offsets[v]]} up to (but not
+ * including) {@code targets[offsets[v + 1]]}, and the incoming neighbours are stored the same way
+ * in {@code sources} and {@code inOffsets}. Both are sorted by the vertex order given at build
+ * time.
+ *
+ * <p>The rows are held in int buffers, so a graph built in memory wraps its arrays and a graph
+ * loaded from a snapshot reads straight from the mapped file without copying it.
+ */
+class CompactGraph {
+
+  private final int vertexCount;
+  private final IntBuffer offsets;
+  private final IntBuffer targets;
+  private final IntBuffer inOffsets;
+  private final IntBuffer sources;
+  // The same rows as plain arrays, which are quicker to read, or null if they are not on the heap
+  private final int[] offsetArray;
+  private final int[] targetArray;
+  private final int[] inOffsetArray;
+  private final int[] sourceArray;
+
+  /**
+   * Builds the compressed rows of a graph in O(V + E) time.
+   *
+   * @param vertexCount the number of verticies in the graph.
+   * @param edgeSources the source id of every edge.
+   * @param edgeTargets the destination id of every edge.
+   * @param edgeCount the number of edges stored in the edge arrays.
+   * @param order every vertex id, in the order neighbours should be listed.
+   * @return the compressed graph.
+   */
+  static CompactGraph build(
+      int vertexCount, int[] edgeSources, int[] edgeTargets, int edgeCount, int[] order) {
+    // Bucketing the edges by destination, so they can be replayed in vertex order
+    int[] byTargetOffsets = countOffsets(vertexCount, edgeTargets, edgeCount);
+    int[] byTarget = new int[edgeCount];
+    int[] cursor = byTargetOffsets.clone();
+    for (int i = 0; i < edgeCount; i++) {
+      byTarget[cursor[edgeTargets[i]]++] = i;
+    }
+    // Bucketing the edges by source, so they can be replayed in vertex order
+    int[] bySourceOffsets = countOffsets(vertexCount, edgeSources, edgeCount);
+    int[] bySource = new int[edgeCount];
+    cursor = bySourceOffsets.clone();
+    for (int i = 0; i < edgeCount; i++) {
+      bySource[cursor[edgeSources[i]]++] = i;
+    }
+
+    // Visiting destinations in order appends them to every outgoing row already sorted
+    int[] offsets = countOffsets(vertexCount, edgeSources, edgeCount);
+    int[] targets = new int[edgeCount];
+    cursor = offsets.clone();
+    for (int target : order) {
+      for (int i = byTargetOffsets[target]; i < byTargetOffsets[target + 1]; i++) {
+        targets[cursor[edgeSources[byTarget[i]]]++] = target;
+      }
+    }
+    // Visiting sources in order does the same for every incoming row
+    int[] inOffsets = countOffsets(vertexCount, edgeTargets, edgeCount);
+    int[] sources = new int[edgeCount];
+    cursor = inOffsets.clone();
+    for (int source : order) {
+      for (int i = bySourceOffsets[source]; i < bySourceOffsets[source + 1]; i++) {
+        sources[cursor[edgeTargets[bySource[i]]]++] = source;
+      }
+    }
+
+    return new CompactGraph(
+        vertexCount,
+        IntBuffer.wrap(offsets),
+        IntBuffer.wrap(targets),
+        IntBuffer.wrap(inOffsets),
+        IntBuffer.wrap(sources));
+  }
+
+  /**
+   * Counts how many edges start at each vertex and turns the counts into row offsets.
+   *
+   * @param vertexCount the number of verticies in the graph.
+   * @param endpoints the endpoint of every edge to count.
+   * @param edgeCount the number of edges stored in the endpoint array.
+   * @return the row offsets, with one extra entry holding the total edge count.
+   */
+  private static int[] countOffsets(int vertexCount, int[] endpoints, int edgeCount) {
+    int[] offsets = new int[vertexCount + 1];
+    for (int i = 0; i < edgeCount; i++) {
+      offsets[endpoints[i] + 1]++;
+    }
+    for (int v = 0; v < vertexCount; v++) {
+      offsets[v + 1] += offsets[v];
+    }
+    return offsets;
+  }
+
+  /**
+   * Constructor for CompactGraph, wraps rows that have already been built.
+   *
+   * @param vertexCount the number of verticies in the graph.
+   * @param offsets the start of every outgoing row, with the edge count at the end.
+   * @param targets the outgoing rows of every vertex, laid end to end.
+   * @param inOffsets the start of every incoming row, with the edge count at the end.
+   * @param sources the incoming rows of every vertex, laid end to end.
+   */
+  CompactGraph(
+      int vertexCount,
+      IntBuffer offsets,
+      IntBuffer targets,
+      IntBuffer inOffsets,
+      IntBuffer sources) {
+    this.vertexCount = vertexCount;
+    this.offsets = offsets;
+    this.targets = targets;
+    this.inOffsets = inOffsets;
+    this.sources = sources;
+    offsetArray = arrayOf(offsets);
+    targetArray = arrayOf(targets);
+    inOffsetArray = arrayOf(inOffsets);
+    sourceArray = arrayOf(sources);
+  }
+
+  /**
+   * Gets the array behind a buffer, if the buffer is a whole array.
+   *
+   * @param buffer the buffer.
+   * @return the array, or null if the buffer is not backed by a whole array.
+   */
+  private static int[] arrayOf(IntBuffer buffer) {
+    if (buffer.hasArray()
+        && buffer.arrayOffset() == 0
+        && buffer.position() == 0
+        && buffer.limit() == buffer.array().length) {
+      return buffer.array();
+    }
+    return null;
+  }
+
+  /**
+   * Gets the number of verticies in the graph.
+   *
+   * @return the number of verticies.
+   */
+  int vertexCount() {
+    return vertexCount;
+  }
+
+  /**
+   * Gets the number of edges in the graph.
+   *
+   * @return the number of edges.
+   */
+  int edgeCount() {
+    return targets.limit();
+  }
+
+  /**
+   * Gets the index of the first outgoing neighbour of a vertex in {@link #target}.
+   *
+   * @param vertex the vertex id.
+   * @return the start of the vertex's outgoing row.
+   */
+  int outStart(int vertex) {
+    return offsetArray != null ? offsetArray[vertex] : offsets.get(vertex);
+  }
+
+  /**
+   * Gets the index one past the last outgoing neighbour of a vertex in {@link #target}.
+   *
+   * @param vertex the vertex id.
+   * @return the end of the vertex's outgoing row.
+   */
+  int outEnd(int vertex) {
+    return offsetArray != null ? offsetArray[vertex + 1] : offsets.get(vertex + 1);
+  }
+
+  /**
+   * Gets the index of the first incoming neighbour of a vertex in {@link #source}.
+   *
+   * @param vertex the vertex id.
+   * @return the start of the vertex's incoming row.
+   */
+  int inStart(int vertex) {
+    return inOffsetArray != null ? inOffsetArray[vertex] : inOffsets.get(vertex);
+  }
+
+  /**
+   * Gets the index one past the last incoming neighbour of a vertex in {@link #source}.
+   *
+   * @param vertex the vertex id.
+   * @return the end of the vertex's incoming row.
+   */
+  int inEnd(int vertex) {
+    return inOffsetArray != null ? inOffsetArray[vertex + 1] : inOffsets.get(vertex + 1);
+  }
+
+  /**
+   * Gets an outgoing neighbour from the rows laid end to end.
+   *
+   * @param index the index of the edge, between {@link #outStart} and {@link #outEnd} of its
+   *     source.
+   * @return the destination id of the edge.
+   */
+  int target(int index) {
+    return targetArray != null ? targetArray[index] : targets.get(index);
+  }
+
+  /**
+   * Gets an incoming neighbour from the rows laid end to end.
+   *
+   * @param index the index of the edge, between {@link #inStart} and {@link #inEnd} of its
+   *     destination.
+   * @return the source id of the edge.
+   */
+  int source(int index) {
+    return sourceArray != null ? sourceArray[index] : sources.get(index);
+  }
+
+  /**
+   * Gets the start of every outgoing row, for saving the rows.
+   *
+   * @return a read only view of the row offsets, with the edge count at the end.
+   */
+  IntBuffer offsets() {
+    return offsets.asReadOnlyBuffer();
+  }
+
+  /**
+   * Gets the start of every incoming row, for saving the rows.
+   *
+   * @return a read only view of the row offsets, with the edge count at the end.
+   */
+  IntBuffer inOffsets() {
+    return inOffsets.asReadOnlyBuffer();
+  }
+
+  /**
+   * Gets the outgoing rows of every vertex laid end to end, for saving the rows.
+   *
+   * @return a read only view of the destination id of every edge, grouped by source.
+   */
+  IntBuffer targets() {
+    return targets.asReadOnlyBuffer();
+  }
+
+  /**
+   * Gets the incoming rows of every vertex laid end to end, for saving the rows.
+   *
+   * @return a read only view of the source id of every edge, grouped by destination.
+   */
+  IntBuffer sources() {
+    return sources.asReadOnlyBuffer();
+  }
+}
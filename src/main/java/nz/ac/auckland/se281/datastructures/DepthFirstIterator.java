@@ -0,0 +1,57 @@
+package nz.ac.auckland.se281.datastructures;
+
+import java.util.List;
+
+/**
+ * A lazy depth first search, visiting verticies in the same order as {@link
+ * Graph#iterativeDepthFirstSearch()}.
+ *
+ * <p>Each call pops verticies off the stack until it finds one that has not been visited. Like the
+ * iterative search, every popped vertex pushes its unvisited neighbours, even if it was visited
+ * before.
+ *
+ * @param <T> the type of each vertex.
+ */
+class DepthFirstIterator<T> extends TraversalIterator<T> {
+
+  private final IntStack stack = new IntStack();
+
+  /**
+   * Constructor for DepthFirstIterator.
+   *
+   * @param core the rows of the graph.
+   * @param verticies every vertex, indexed by its id.
+   * @param roots the ids of the roots, in the order the search starts from them.
+   */
+  DepthFirstIterator(CompactGraph core, List<T> verticies, List<Integer> roots) {
+    super(core, verticies, roots);
+  }
+
+  @Override
+  protected int advance() {
+    while (true) {
+      // starting from the next root once everything reachable from the last one is visited
+      if (stack.isEmpty()) {
+        int root = nextUnvisitedRoot();
+        if (root < 0) {
+          return -1;
+        }
+        stack.push(root);
+      }
+
+      int current = stack.pop();
+      boolean unvisited = !visited.get(current);
+      visited.set(current);
+      // pushing the neighbours in reverse, so the first is searched first
+      for (int i = core.outEnd(current) - 1; i >= core.outStart(current); i--) {
+        int target = core.target(i);
+        if (!visited.get(target)) {
+          stack.push(target);
+        }
+      }
+      if (unvisited) {
+        return current;
+      }
+    }
+  }
+}
@@ -0,0 +1,82 @@
+package nz.ac.auckland.se281.datastructures;
+
+/**
+ * A class representing a disjoint set (union-find) data structure over the integers {@code 0} to
+ * {@code size - 1}.
+ *
+ * <p>Uses union by rank and path compression, so any sequence of operations runs in near constant
+ * amortised time per operation.
+ */
+class DisjointSet {
+
+  private int[] parent;
+  private byte[] rank;
+
+  /**
+   * Constructor for DisjointSet, initialises every element in a set of its own.
+   *
+   * @param size the number of elements.
+   */
+  DisjointSet(int size) {
+    parent = new int[size];
+    rank = new byte[size];
+    for (int i = 0; i < size; i++) {
+      parent[i] = i;
+    }
+  }
+
+  /**
+   * Finds the representative element of the set containing an element.
+   *
+   * @param element the element to find the set of.
+   * @return the representative of the element's set.
+   */
+  int find(int element) {
+    // walk up to the root of the tree
+    int root = element;
+    while (parent[root] != root) {
+      root = parent[root];
+    }
+    // point every element on the path straight at the root
+    while (parent[element] != root) {
+      int next = parent[element];
+      parent[element] = root;
+      element = next;
+    }
+    return root;
+  }
+
+  /**
+   * Merges the sets containing two elements.
+   *
+   * @param first an element of the first set.
+   * @param second an element of the second set.
+   * @return true if the sets were merged, false if the elements were already in the same set.
+   */
+  boolean union(int first, int second) {
+    int firstRoot = find(first);
+    int secondRoot = find(second);
+    if (firstRoot == secondRoot) {
+      return false;
+    }
+    // attach the shorter tree under the taller one
+    if (rank[firstRoot] < rank[secondRoot]) {
+      parent[firstRoot] = secondRoot;
+    } else if (rank[firstRoot] > rank[secondRoot]) {
+      parent[secondRoot] = firstRoot;
+    } else {
+      parent[secondRoot] = firstRoot;
+      rank[firstRoot]++;
+    }
+    return true;
+  }
+
+  /**
+   * Gets the number of elements in the disjoint set.
+   *
+   * @return the number of elements.
+   */
+  int size() {
+    return parent.length;
+  }
+}
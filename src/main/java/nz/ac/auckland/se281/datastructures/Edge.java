@@ -1,5 +1,7 @@
 package nz.ac.auckland.se281.datastructures;
 
+import java.util.Objects;
+
 /**
  * An edge in a graph that connects two verticies.
  *
@@ -23,4 +25,32 @@ public class Edge<T> {
   public T getDestination() {
     return destination;
   }
+
+  /**
+   * Checks if this edge connects the same two verticies, in the same direction, as another edge.
+   *
+   * @param obj the object to compare with.
+   * @return true if the other object is an equal edge, false otherwise.
+   */
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof Edge)) {
+      return false;
+    }
+    Edge<?> other = (Edge<?>) obj;
+    return Objects.equals(source, other.source) && Objects.equals(destination, other.destination);
+  }
+
+  /**
+   * Computes a hash code from the source and destination of the edge.
+   *
+   * @return the hash code of the edge.
+   */
+  @Override
+  public int hashCode() {
+    return Objects.hash(source, destination);
+  }
 }
@@ -0,0 +1,144 @@
+package nz.ac.auckland.se281.datastructures;
+
+import java.util.Arrays;
+
+/**
+ * A hash set of edges between integer vertex ids, for constant time edge lookups.
+ *
+ * <p>Each edge is packed into a single {@code long} as {@code source << 32 | destination} and
+ * stored in an open addressing table with linear probing, so no object is allocated per edge.
+ */
+class EdgeSet {
+
+  private static final long EMPTY = -1L;
+
+  private long[] keys;
+  private int mask;
+  private int size;
+
+  /**
+   * Constructor for EdgeSet, sizes the table so the expected number of edges fits without
+   * resizing.
+   *
+   * @param expectedEdges the number of edges expected to be added.
+   */
+  EdgeSet(int expectedEdges) {
+    int capacity = capacityFor(expectedEdges);
+    keys = new long[capacity];
+    Arrays.fill(keys, EMPTY);
+    mask = capacity - 1;
+  }
+
+  /**
+   * Adds an edge to the set.
+   *
+   * @param source the source vertex id.
+   * @param destination the destination vertex id.
+   * @return true if the edge was added, false if it was already in the set.
+   */
+  boolean add(int source, int destination) {
+    if (size * 2 >= keys.length) {
+      grow();
+    }
+    long key = pack(source, destination);
+    int slot = slot(key);
+    while (keys[slot] != EMPTY) {
+      if (keys[slot] == key) {
+        return false;
+      }
+      slot = (slot + 1) & mask;
+    }
+    keys[slot] = key;
+    size++;
+    return true;
+  }
+
+  /**
+   * Checks if an edge is in the set.
+   *
+   * @param source the source vertex id.
+   * @param destination the destination vertex id.
+   * @return true if the edge is in the set, false otherwise.
+   */
+  boolean contains(int source, int destination) {
+    long key = pack(source, destination);
+    int slot = slot(key);
+    while (keys[slot] != EMPTY) {
+      if (keys[slot] == key) {
+        return true;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return false;
+  }
+
+  /**
+   * Gets the number of edges in the set.
+   *
+   * @return the number of edges.
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Gets the number of slots in the table.
+   *
+   * @return the capacity of the table.
+   */
+  int capacity() {
+    return keys.length;
+  }
+
+  /**
+   * Gets the number of slots a new table sized for some number of edges would have.
+   *
+   * @param expectedEdges the number of edges expected to be added.
+   * @return the capacity of the table.
+   */
+  static int capacityFor(int expectedEdges) {
+    // Keeping the table at most half full, with a power of two capacity
+    return Integer.highestOneBit(Math.max(4, expectedEdges) * 2 - 1) << 1;
+  }
+
+  /** Doubles the capacity of the table and re-inserts every edge. */
+  private void grow() {
+    long[] oldKeys = keys;
+    keys = new long[oldKeys.length * 2];
+    Arrays.fill(keys, EMPTY);
+    mask = keys.length - 1;
+    for (long key : oldKeys) {
+      if (key != EMPTY) {
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+      }
+    }
+  }
+
+  /**
+   * Packs an edge into a single key.
+   *
+   * @param source the source vertex id.
+   * @param destination the destination vertex id.
+   * @return the packed edge.
+   */
+  private static long pack(int source, int destination) {
+    return ((long) source << 32) | (destination & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Computes the table slot a key hashes to, mixing the bits so sequential ids spread out.
+   *
+   * @param key the packed edge.
+   * @return the slot index.
+   */
+  private int slot(long key) {
+    key ^= key >>> 33;
+    key *= 0xFF51AFD7ED558CCDL;
+    key ^= key >>> 33;
+    return (int) key & mask;
+  }
+}
@@ -0,0 +1,140 @@
+package nz.ac.auckland.se281.datastructures;
+
+import java.util.Arrays;
+
+/**
+ * The verticies of a graph partitioned into the classes joined by its edges, built once with a
+ * {@link DisjointSet}.
+ *
+ * <p>When the graph is an equivalence relation these are exactly its equivalence classes. Classes
+ * are numbered in the order of their first member, and the members of each class are stored
+ * contiguously in vertex order, so listing a class costs O(class size).
+ */
+class EquivalencePartition {
+
+  private final int[] classOf;
+  private final int[] classOffsets;
+  private final int[] members;
+
+  /**
+   * Constructor for EquivalencePartition, unions the endpoints of every edge in the graph.
+   *
+   * @param core the graph to partition.
+   * @param order every vertex id, in the order members should be listed.
+   */
+  EquivalencePartition(CompactGraph core, int[] order) {
+    int vertexCount = core.vertexCount();
+    DisjointSet sets = new DisjointSet(vertexCount);
+    for (int source = 0; source < vertexCount; source++) {
+      for (int i = core.outStart(source); i < core.outEnd(source); i++) {
+        sets.union(source, core.target(i));
+      }
+    }
+
+    // Numbering the classes in the order their first member is reached
+    int[] classOfRoot = new int[vertexCount];
+    Arrays.fill(classOfRoot, -1);
+    classOf = new int[vertexCount];
+    int classCount = 0;
+    for (int vertex : order) {
+      int root = sets.find(vertex);
+      if (classOfRoot[root] < 0) {
+        classOfRoot[root] = classCount++;
+      }
+      classOf[vertex] = classOfRoot[root];
+    }
+
+    // Laying the members of each class out contiguously, still in order
+    classOffsets = new int[classCount + 1];
+    for (int vertex = 0; vertex < vertexCount; vertex++) {
+      classOffsets[classOf[vertex] + 1]++;
+    }
+    for (int c = 0; c < classCount; c++) {
+      classOffsets[c + 1] += classOffsets[c];
+    }
+    members = new int[vertexCount];
+    int[] cursor = Arrays.copyOf(classOffsets, classCount);
+    for (int vertex : order) {
+      members[cursor[classOf[vertex]]++] = vertex;
+    }
+  }
+
+  /**
+   * Constructor for EquivalencePartition, wraps a partition that has already been built.
+   *
+   * @param classOf the class index of every vertex.
+   * @param classOffsets the start of every class in the members, with the vertex count at the end.
+   * @param members the vertex ids of every class, grouped by class.
+   */
+  EquivalencePartition(int[] classOf, int[] classOffsets, int[] members) {
+    this.classOf = classOf;
+    this.classOffsets = classOffsets;
+    this.members = members;
+  }
+
+  /**
+   * Gets the number of classes in the partition.
+   *
+   * @return the number of classes.
+   */
+  int classCount() {
+    return classOffsets.length - 1;
+  }
+
+  /**
+   * Gets the class that a vertex belongs to.
+   *
+   * @param vertex the vertex id.
+   * @return the index of the vertex's class.
+   */
+  int classOf(int vertex) {
+    return classOf[vertex];
+  }
+
+  /**
+   * Gets the index of the first member of a class in {@link #members()}.
+   *
+   * @param eqClass the class index.
+   * @return the start of the class's members.
+   */
+  int classStart(int eqClass) {
+    return classOffsets[eqClass];
+  }
+
+  /**
+   * Gets the index one past the last member of a class in {@link #members()}.
+   *
+   * @param eqClass the class index.
+   * @return the end of the class's members.
+   */
+  int classEnd(int eqClass) {
+    return classOffsets[eqClass + 1];
+  }
+
+  /**
+   * Gets the class index of every vertex.
+   *
+   * @return the class indexes, indexed by vertex id.
+   */
+  int[] classOf() {
+    return classOf;
+  }
+
+  /**
+   * Gets the start of every class in {@link #members()}.
+   *
+   * @return the class offsets, with the vertex count at the end.
+   */
+  int[] classOffsets() {
+    return classOffsets;
+  }
+
+  /**
+   * Gets the members of every class, laid end to end.
+   *
+   * @return the vertex ids of every class, grouped by class.
+   */
+  int[] members() {
+    return members;
+  }
+}
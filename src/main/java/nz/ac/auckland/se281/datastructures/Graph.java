@@ -1,12 +1,29 @@
 package nz.ac.auckland.se281.datastructures;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import nz.ac.auckland.se281.events.EquivalencePartitionEvent;
+import nz.ac.auckland.se281.events.GraphBuildEvent;
+import nz.ac.auckland.se281.events.PropertyCheckEvent;
+import nz.ac.auckland.se281.events.TraversalEvent;
 
 /**
  * A graph that is composed of a set of verticies and edges.
@@ -17,9 +34,29 @@ import java.util.Set;
  */
 public class Graph<T extends Comparable<T>> {
 
-  private Set<T> verticies;
-  private Set<Edge<T>> edges;
-  private HashMap<T, ArrayList<T>> adjacency;
+  // A short label, its list slot, and its entry and boxed id in the id map
+  private static final long VERTEX_BYTES = 96;
+
+  private ArrayList<T> verticies;
+  private int[] order;
+  private int edgeCount;
+  // A snapshot only reads its rows, and builds the id map and edge set, once they are needed
+  private Lazy<CompactGraph> rows;
+  private Lazy<HashMap<T, Integer>> ids;
+  private Lazy<EdgeSet> edgeSet;
+
+  // The graph never changes once built, so each property is computed at most once
+  private final Lazy<Boolean> reflexive =
+      new Lazy<>(() -> check("reflexive", () -> computeReflexive(new AtomicBoolean())));
+  private final Lazy<Boolean> symmetric =
+      new Lazy<>(() -> check("symmetric", () -> computeSymmetric(new AtomicBoolean())));
+  private final Lazy<Boolean> transitive =
+      new Lazy<>(() -> check("transitive", () -> computeTransitive(new AtomicBoolean())));
+  private final Lazy<Boolean> antiSymmetric =
+      new Lazy<>(() -> check("antisymmetric", this::computeAntiSymmetric));
+  private final Lazy<Boolean> equivalence =
+      new Lazy<>(() -> check("equivalence", this::computeEquivalence));
+  private final Lazy<EquivalencePartition> partition = new Lazy<>(this::computePartition);
 
   /**
    * Constructor for Graph.
@@ -28,24 +65,88 @@ public class Graph<T extends Comparable<T>> {
    * @param edges edges of the graph that has been created.
    */
   public Graph(Set<T> verticies, Set<Edge<T>> edges) {
-    // Setting the verticies and edges of the graph
+    this(fromSets(verticies, edges));
+  }
+
+  /**
+   * Constructor for Graph, takes ownership of the verticies and edges collected by a builder.
+   *
+   * @param builder the builder holding the verticies and edges.
+   */
+  Graph(GraphBuilder<T> builder) {
+    GraphBuildEvent event = new GraphBuildEvent();
+    event.begin();
+    verticies = builder.verticies();
+    ids = Lazy.of(builder.ids());
+    edgeSet = Lazy.of(builder.edgeSet());
+    // Ordering the verticies once, so every neighbour list is built in sorted order
+    order = new VertexOrder(verticies).order();
+    CompactGraph core =
+        CompactGraph.build(
+            order.length,
+            builder.edgeSources(),
+            builder.edgeTargets(),
+            builder.edgeCount(),
+            order);
+    rows = Lazy.of(core);
+    edgeCount = core.edgeCount();
+    event.record(order.length, edgeCount);
+  }
+
+  /**
+   * Constructor for Graph, copies a graph without any of the properties it has computed. The copy
+   * shares the verticies, rows, id map and edge set, as they never change.
+   *
+   * @param graph the graph to copy.
+   */
+  Graph(Graph<T> graph) {
+    verticies = graph.verticies;
+    order = graph.order;
+    edgeCount = graph.edgeCount;
+    rows = graph.rows;
+    ids = graph.ids;
+    edgeSet = graph.edgeSet;
+  }
+
+  /**
+   * Constructor for Graph, wraps a graph whose rows are only read when they are first needed,
+   * such as one loaded from a snapshot. The id map and edge set are also built on first use.
+   *
+   * @param verticies every vertex, indexed by its id.
+   * @param order every vertex id, in sorted order.
+   * @param edgeCount the number of edges in the rows.
+   * @param rows reads the rows of the graph, sorted by the same order.
+   */
+  Graph(ArrayList<T> verticies, int[] order, int edgeCount, Lazy<CompactGraph> rows) {
     this.verticies = verticies;
-    this.edges = edges;
-    // Creating a hashmap of the adjacency list
-    adjacency = new HashMap<T, ArrayList<T>>();
+    this.order = order;
+    this.edgeCount = edgeCount;
+    this.rows = rows;
+    ids = new Lazy<>(this::indexVerticies);
+    edgeSet = new Lazy<>(this::collectEdges);
+  }
+
+  /**
+   * Interns a set of verticies and a set of edges, skipping edges between unknown verticies.
+   *
+   * @param <T> the type of each vertex.
+   * @param verticies the verticies of the graph.
+   * @param edges the edges of the graph.
+   * @return a builder holding the verticies and edges.
+   */
+  private static <T extends Comparable<T>> GraphBuilder<T> fromSets(
+      Set<T> verticies, Set<Edge<T>> edges) {
+    GraphBuilder<T> builder = new GraphBuilder<>();
     for (T vertex : verticies) {
-      // Using an arraylist of the next verticies
-      ArrayList<T> nextVertices = new ArrayList<T>();
-      for (Edge<T> edge : edges) {
-        if (edge.getSource() == vertex) {
-          nextVertices.add(edge.getDestination());
-        }
+      builder.addVertex(vertex);
+    }
+    for (Edge<T> edge : edges) {
+      if (builder.containsVertex(edge.getSource())
+          && builder.containsVertex(edge.getDestination())) {
+        builder.addEdge(edge.getSource(), edge.getDestination());
       }
-      // Sorting the next verticies
-      nextVertices.sort(Comparator.comparing(vertices2 -> Integer.parseInt(vertices2.toString())));
-      // Putting the vertex and the next verticies into the adjacency list
-      adjacency.put(vertex, nextVertices);
     }
+    return builder;
   }
 
   /**
@@ -54,45 +155,48 @@ public class Graph<T extends Comparable<T>> {
    * @return the set of root verticies in the graph.
    */
   public Set<T> getRoots() {
-    // Creating an arraylist of the roots, and a set of the final roots
-    ArrayList<T> roots = new ArrayList<T>();
+    // Adding the roots to the final roots set in sorted order
     Set<T> finalRoots = new LinkedHashSet<T>();
-    // This part of the code adds nodes with an in degree of 0 to the roots arraylist
-    for (T vertex : verticies) {
-      boolean isRoot = true;
-      for (Edge<T> edge : edges) {
-        if (edge.getDestination().equals(vertex)) {
-          isRoot = false;
-        }
-      }
-      if (isRoot == true) {
-        roots.add(vertex);
-      }
+    for (int vertex : rootIds()) {
+      finalRoots.add(verticies.get(vertex));
     }
-    // This computes if the graph is equivalence, and if it is, it adds the smallest root of each
-    // equivalence class to the roots arraylist
-    if (this.isEquivalence()) {
-      Set<Set<T>> eqSet = new LinkedHashSet<>();
-      for (T vertex : adjacency.keySet()) {
+    // Returning the final roots set
+    return finalRoots;
+  }
 
-        Set<T> eqClass = getEquivalenceClass(vertex);
-        if (!eqSet.contains(eqClass)) {
-          eqSet.add(eqClass);
-        }
+  /**
+   * Computes the ids of the roots in a graph, in the same order as {@link #getRoots()}.
+   *
+   * @return the root vertex ids.
+   */
+  private List<Integer> rootIds() {
+    CompactGraph core = rows.get();
+    // Marking the roots, so they can be collected in sorted order
+    boolean[] isRoot = new boolean[order.length];
+    // This part of the code marks nodes with an in degree of 0 as roots
+    for (int vertex = 0; vertex < order.length; vertex++) {
+      if (core.inStart(vertex) == core.inEnd(vertex)) {
+        isRoot[vertex] = true;
       }
-      for (Set<T> eqClass : eqSet) {
-        T root = Collections.min(eqClass);
-        roots.add(root);
+    }
+    // This computes if the graph is equivalence, and if it is, it marks the smallest root of each
+    // equivalence class as a root
+    if (this.isEquivalence()) {
+      EquivalencePartition classes = partition.get();
+      int[] members = classes.members();
+      for (int eqClass = 0; eqClass < classes.classCount(); eqClass++) {
+        // The members of each class are stored in rank order, so the first is the smallest
+        isRoot[members[classes.classStart(eqClass)]] = true;
       }
     }
-    // Sorting the roots arraylist
-    roots.sort(Comparator.comparing(vertices2 -> Integer.parseInt(vertices2.toString())));
-    // Adding the roots arraylist to the final roots set
-    for (T root : roots) {
-      finalRoots.add(root);
+    // Collecting the roots in sorted order
+    List<Integer> roots = new ArrayList<>();
+    for (int vertex : order) {
+      if (isRoot[vertex]) {
+        roots.add(vertex);
+      }
     }
-    // Returning the final roots set
-    return finalRoots;
+    return roots;
   }
 
   /**
@@ -101,21 +205,48 @@ public class Graph<T extends Comparable<T>> {
    * @return returns true if the graph is reflexive, false otherwise.
    */
   public boolean isReflexive() {
-    // Looping through every vertex in the graph
-    for (T vertex : verticies) {
-      Boolean hasLoop = false;
-      for (Edge<T> edge : edges) {
-        // Checking if the vertex has a loop
-        if (edge.getSource().equals(vertex) && edge.getDestination().equals(vertex)) {
-          hasLoop = true;
-        }
-      }
-      if (!hasLoop) {
-        // If any vertex does not have a loop, the graph is not reflexive
-        return false;
-      }
-    }
-    return true;
+    return reflexive.get();
+  }
+
+  /**
+   * Computes a property of the graph, recording the check as a flight recorder event.
+   *
+   * @param property the name of the property.
+   * @param check computes the property.
+   * @return returns true if the graph has the property, false otherwise.
+   */
+  private boolean check(String property, BooleanSupplier check) {
+    PropertyCheckEvent event = new PropertyCheckEvent();
+    event.begin();
+    boolean result = check.getAsBoolean();
+    event.record(property, order.length, edgeCount, result);
+    return result;
+  }
+
+  /**
+   * Partitions the verticies into equivalence classes, recording it as a flight recorder event.
+   *
+   * @return the partition of the verticies.
+   */
+  private EquivalencePartition computePartition() {
+    CompactGraph core = rows.get();
+    EquivalencePartitionEvent event = new EquivalencePartitionEvent();
+    event.begin();
+    EquivalencePartition classes = new EquivalencePartition(core, order);
+    event.record(order.length, edgeCount, classes.classCount());
+    return classes;
+  }
+
+  /**
+   * Computes if the graph is a reflexive graph, ignoring any cached result.
+   *
+   * @param stop the flag that gives up on the check once it is set.
+   * @return returns true if the graph is reflexive, false otherwise.
+   */
+  private boolean computeReflexive(AtomicBoolean stop) {
+    EdgeSet edges = edgeSet.get();
+    // Every vertex needs an edge to itself for the graph to be reflexive
+    return VertexCheck.forAll(rows.get(), vertex -> edges.contains(vertex, vertex), stop);
   }
 
   /**
@@ -124,23 +255,31 @@ public class Graph<T extends Comparable<T>> {
    * @return returns true if the graph is symmetric, false otherwise.
    */
   public boolean isSymmetric() {
-    // Looping through every edge in the graph
-    for (Edge<T> edge : edges) {
-      Boolean hasReturn = false;
-      // Checking if the edge has a return edge
-      for (Edge<T> edge2 : edges) {
-        if (edge.getSource().equals(edge2.getDestination())
-            && edge.getDestination().equals(edge2.getSource())) {
-          hasReturn = true;
-        }
-      }
-      if (!hasReturn) {
-        // If any edge does not have a return edge, the graph is not symmetric
-        return false;
-      }
-    }
-    // If every edge has a return edge, the graph is symmetric
-    return true;
+    return symmetric.get();
+  }
+
+  /**
+   * Computes if the graph is a symmetric graph, ignoring any cached result.
+   *
+   * @param stop the flag that gives up on the check once it is set.
+   * @return returns true if the graph is symmetric, false otherwise.
+   */
+  private boolean computeSymmetric(AtomicBoolean stop) {
+    CompactGraph core = rows.get();
+    EdgeSet edges = edgeSet.get();
+    // Checking every edge out of each vertex, the graph is not symmetric if any edge does not
+    // have a return edge
+    return VertexCheck.forAll(
+        core,
+        source -> {
+          for (int i = core.outStart(source); i < core.outEnd(source); i++) {
+            if (!edges.contains(core.target(i), source)) {
+              return false;
+            }
+          }
+          return true;
+        },
+        stop);
   }
 
   /**
@@ -149,28 +288,39 @@ public class Graph<T extends Comparable<T>> {
    * @return returns true if the graph is transitive, false otherwise.
    */
   public boolean isTransitive() {
-    // Looping through every edge in the graph
-    for (Edge<T> edge : edges) {
-      // Checking if the edge has a transitive edge
-      for (Edge<T> edge2 : edges) {
-        if (edge.getDestination().equals(edge2.getSource())) {
-          Boolean hasTransitive = false;
-          // Checking if the edge has a transitive edge
-          for (Edge<T> edge3 : edges) {
-            // if every edge has a transitive edge, the graph is transitive
-            if (edge.getSource().equals(edge3.getSource())
-                && edge2.getDestination().equals(edge3.getDestination())) {
-              hasTransitive = true;
-            }
-          }
-          if (!hasTransitive) {
-            // If any edge does not have a transitive edge, the graph is not transitive
-            return false;
-          }
-        }
+    return transitive.get();
+  }
+
+  /**
+   * Computes if the graph is a transitive graph, ignoring any cached result.
+   *
+   * @param stop the flag that gives up on the check once it is set.
+   * @return returns true if the graph is transitive, false otherwise.
+   */
+  private boolean computeTransitive(AtomicBoolean stop) {
+    CompactGraph core = rows.get();
+    return new TransitivityChecker(core, stop).findViolation() == null;
+  }
+
+  /**
+   * Finds a path of two edges whose transitive edge is missing from the graph.
+   *
+   * @return the three verticies of the path in order, or an empty list if the graph is transitive.
+   */
+  public List<T> getTransitivityViolation() {
+    CompactGraph core = rows.get();
+    List<T> violation = new ArrayList<>();
+    if (transitive.isComputed() && isTransitive()) {
+      // There is nothing to find if the graph is already known to be transitive
+      return violation;
+    }
+    int[] triple = new TransitivityChecker(core).findViolation();
+    if (triple != null) {
+      for (int vertex : triple) {
+        violation.add(verticies.get(vertex));
       }
     }
-    return true;
+    return violation;
   }
 
   /**
@@ -179,22 +329,30 @@ public class Graph<T extends Comparable<T>> {
    * @return returns true if the graph is anti symmetric, false otherwise.
    */
   public boolean isAntiSymmetric() {
-    // Looping through every edge in the graph
-    for (Edge<T> edge : edges) {
-      // Checking if the edge has a return edge
-      for (Edge<T> edge2 : edges) {
-        if (edge.getSource().equals(edge2.getDestination())
-            && edge.getDestination().equals(edge2.getSource())) {
-          if (!edge.getSource().equals(edge.getDestination())) {
-            // If any two edges goes both ways but the destination is not the same as the source,
-            // the graph is not anti symmetric
-            return false;
+    return antiSymmetric.get();
+  }
+
+  /**
+   * Computes if the graph is a anti symmetric graph, ignoring any cached result.
+   *
+   * @return returns true if the graph is anti symmetric, false otherwise.
+   */
+  private boolean computeAntiSymmetric() {
+    CompactGraph core = rows.get();
+    EdgeSet edges = edgeSet.get();
+    // Checking every edge out of each vertex, the graph is not anti symmetric if any two edges
+    // go both ways between different verticies
+    return VertexCheck.forAll(
+        core,
+        source -> {
+          for (int i = core.outStart(source); i < core.outEnd(source); i++) {
+            int target = core.target(i);
+            if (target != source && edges.contains(target, source)) {
+              return false;
+            }
           }
-        }
-      }
-    }
-    // If every edge has a return edge, the graph is anti symmetric
-    return true;
+          return true;
+        });
   }
 
   /**
@@ -203,7 +361,82 @@ public class Graph<T extends Comparable<T>> {
    * @return returns true if the graph is equivalence, false otherwise.
    */
   public boolean isEquivalence() {
-    return isReflexive() && isSymmetric() && isTransitive();
+    return equivalence.get();
+  }
+
+  /**
+   * Computes if the graph is a equivalence graph. On large graphs the three properties are checked
+   * at the same time, and the answer is given as soon as any of them fails. The other checks share
+   * a stop flag that is set once the answer is known, so they give up rather than run to the end.
+   *
+   * @return returns true if the graph is equivalence, false otherwise.
+   */
+  private boolean computeEquivalence() {
+    if (edgeCount < VertexCheck.PARALLEL_EDGES) {
+      return isReflexive() && isSymmetric() && isTransitive();
+    }
+    AtomicBoolean stop = new AtomicBoolean();
+    List<CompletableFuture<Boolean>> checks =
+        List.of(
+            checkAsync(reflexive, () -> check("reflexive", () -> computeReflexive(stop))),
+            checkAsync(symmetric, () -> check("symmetric", () -> computeSymmetric(stop))),
+            checkAsync(transitive, () -> check("transitive", () -> computeTransitive(stop))));
+    CompletableFuture<Boolean> answer = new CompletableFuture<>();
+    // Stopping the checks still running as soon as the answer is known
+    answer.whenComplete((holds, error) -> stop.set(true));
+    for (CompletableFuture<Boolean> check : checks) {
+      check.whenComplete(
+          (holds, error) -> {
+            if (error != null) {
+              answer.completeExceptionally(error);
+            } else if (!holds) {
+              answer.complete(false);
+            }
+          });
+    }
+    CompletableFuture.allOf(checks.toArray(new CompletableFuture<?>[0]))
+        .thenRun(() -> answer.complete(true));
+    try {
+      return answer.join();
+    } catch (CompletionException e) {
+      // Rethrowing what the failed check threw, rather than the wrapper around it
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw e;
+    } finally {
+      // The checks that have not started are no longer needed, those that are running give up
+      stop.set(true);
+      for (CompletableFuture<Boolean> check : checks) {
+        check.cancel(false);
+      }
+    }
+  }
+
+  /**
+   * Starts a property check on the common fork join pool, unless the property is already known.
+   * The answer is remembered only if the check runs to the end, so a check that gives up is run
+   * again the next time the property is asked for.
+   *
+   * @param property the cached property.
+   * @param check checks the property.
+   * @return the answer of the check.
+   */
+  private CompletableFuture<Boolean> checkAsync(Lazy<Boolean> property, BooleanSupplier check) {
+    if (property.isComputed()) {
+      return CompletableFuture.completedFuture(property.get());
+    }
+    return CompletableFuture.supplyAsync(
+        () -> {
+          boolean holds = check.getAsBoolean();
+          property.preset(holds);
+          return holds;
+        },
+        ForkJoinPool.commonPool());
   }
 
   /**
@@ -213,78 +446,94 @@ public class Graph<T extends Comparable<T>> {
    * @return the set of the equivalence class of the vertex.
    */
   public Set<T> getEquivalenceClass(T vertex) {
-    // Creating a set of the equivalence class, and arraylist for individual equivalence classes
+    // Creating a set of the equivalence class
     Set<T> eqClassSet = new LinkedHashSet<>();
-    ArrayList<T> eqClass = new ArrayList<>();
-    if (!isEquivalence() || verticies.contains(vertex) == false) {
+    Integer start = ids.get().get(vertex);
+    if (!isEquivalence() || start == null) {
       // If the graph is not equivalence, the equivalence class is just an empty set
       return eqClassSet;
-    } else {
-      // If the graph is equivalence, the equivalence class is computed
-      eqClass.add(vertex);
-      boolean moreVerticiesToCheck = true;
-      while (moreVerticiesToCheck) {
-        moreVerticiesToCheck = false;
-        for (Edge<T> edge : edges) {
-          T source = edge.getSource();
-          T destination = edge.getDestination();
-          // If the source is in the equivalence class but the destination is not, the destination
-          // is added to the equivalence class
-          if (eqClass.contains(source) && !eqClass.contains(destination)) {
-            eqClass.add(destination);
-            moreVerticiesToCheck = true;
-          }
-        }
-      }
     }
-
-    // Sorting the equivalence class
-    eqClass.sort(Comparator.comparing(vertices2 -> Integer.parseInt(vertices2.toString())));
-    // Adding the equivalence class to the set of equivalence classes
-    for (T vertex2 : eqClass) {
-      eqClassSet.add(vertex2);
+    // If the graph is equivalence, the equivalence class is looked up in the partition
+    EquivalencePartition classes = partition.get();
+    int eqClass = classes.classOf(start);
+    int[] members = classes.members();
+    for (int i = classes.classStart(eqClass); i < classes.classEnd(eqClass); i++) {
+      eqClassSet.add(verticies.get(members[i]));
     }
     return eqClassSet;
   }
 
+  /**
+   * Gets every equivalence class of the graph.
+   *
+   * @return the equivalence classes in order of their smallest vertex, or an empty list if the
+   *     graph is not an equivalence relation.
+   */
+  public List<Set<T>> getEquivalenceClasses() {
+    List<Set<T>> eqClasses = new ArrayList<>();
+    if (!isEquivalence()) {
+      return eqClasses;
+    }
+    EquivalencePartition classes = partition.get();
+    int[] members = classes.members();
+    for (int eqClass = 0; eqClass < classes.classCount(); eqClass++) {
+      Set<T> eqClassSet = new LinkedHashSet<>();
+      for (int i = classes.classStart(eqClass); i < classes.classEnd(eqClass); i++) {
+        eqClassSet.add(verticies.get(members[i]));
+      }
+      eqClasses.add(eqClassSet);
+    }
+    return eqClasses;
+  }
+
   /**
    * Conducts an iterative breadth first search on the graph.
    *
    * @return the list of verticies in the order they were visited.
    */
   public List<T> iterativeBreadthFirstSearch() {
-    // Creating a list of the visited nodes, a queue, and a set of the roots
-    List<T> visitedNodes = new ArrayList<>();
-    Queue<T> queue = new Queue<T>();
-    Set<T> roots = getRoots();
+    CompactGraph core = rows.get();
+    TraversalEvent event = new TraversalEvent();
+    event.begin();
+    if (edgeCount >= VertexCheck.PARALLEL_EDGES) {
+      // Expanding each level of the search across the fork join pool, in the same order
+      int[] visitedIds = new ParallelBreadthFirstSearch(core, order).search(rootIds());
+      event.record("parallel breadth first", order.length, edgeCount, visitedIds.length);
+      return toVerticies(visitedIds);
+    }
+    // Creating a list of the visited nodes, a bitset of the visited ids, a queue, and a set of
+    // the roots
+    List<Integer> visitedNodes = new ArrayList<>();
+    BitSet visited = new BitSet(order.length);
+    IntQueue queue = new IntQueue();
 
     // Looping through every root
-    for (T vertex : roots) {
-      if (!visitedNodes.contains(vertex)) {
+    for (int vertex : rootIds()) {
+      if (!visited.get(vertex)) {
         // If the root has not been visited, it is added to the queue and the visited nodes list
         queue.enqueue(vertex);
+        visited.set(vertex);
         visitedNodes.add(vertex);
         // Looping through every node in the queue
         while (!queue.isEmpty()) {
-          T current = queue.peek();
+          int current = queue.peek();
           queue.dequeue();
-          // Looping through every destination node of the current node
-          List<T> destinationNodes = adjacency.get(current);
-          if (destinationNodes != null) {
-            // If the destination node has not been visited, it is added to the queue and the
-            // visited nodes list
-            for (T destinationNode : destinationNodes) {
-              if (!visitedNodes.contains(destinationNode)) {
-                visitedNodes.add(destinationNode);
-                queue.enqueue(destinationNode);
-              }
+          // If the destination node has not been visited, it is added to the queue and the
+          // visited nodes list
+          for (int i = core.outStart(current); i < core.outEnd(current); i++) {
+            int destinationNode = core.target(i);
+            if (!visited.get(destinationNode)) {
+              visited.set(destinationNode);
+              visitedNodes.add(destinationNode);
+              queue.enqueue(destinationNode);
             }
           }
         }
       }
     }
 
-    return visitedNodes;
+    event.record("iterative breadth first", order.length, edgeCount, visitedNodes.size());
+    return toVerticies(visitedNodes);
   }
 
   /**
@@ -293,41 +542,83 @@ public class Graph<T extends Comparable<T>> {
    * @return the list of verticies in the order they were visited.
    */
   public List<T> iterativeDepthFirstSearch() {
-    // Creating a list of the visited nodes, a stack, and a set of the roots
-    List<T> visitedNodes = new ArrayList<>();
-    Stack<T> stack = new Stack<>();
-    Set<T> roots = getRoots();
+    CompactGraph core = rows.get();
+    TraversalEvent event = new TraversalEvent();
+    event.begin();
+    // Creating a list of the visited nodes, a bitset of the visited ids, a stack, and a set of
+    // the roots
+    List<Integer> visitedNodes = new ArrayList<>();
+    BitSet visited = new BitSet(order.length);
+    IntStack stack = new IntStack();
 
     // Looping through every root
-    for (T vertex : roots) {
-      if (!visitedNodes.contains(vertex)) {
+    for (int vertex : rootIds()) {
+      if (!visited.get(vertex)) {
         // If the root has not been visited, it is added to the stack and the visited nodes list
         stack.push(vertex);
 
         // Looping through every node in the stack
         while (!stack.isEmpty()) {
           // If the node has not been visited, it is added to the visited nodes list
-          T current = stack.pop();
-          if (!visitedNodes.contains(current)) {
+          int current = stack.pop();
+          if (!visited.get(current)) {
+            visited.set(current);
             visitedNodes.add(current);
           }
-          // Looping through every destination node of the current node
-          List<T> destinationNodes = adjacency.get(current);
-          if (destinationNodes != null) {
-            // If the destination node has not been visited, it is added to the stack in reverse
-            // order
-            for (int i = destinationNodes.size() - 1; i >= 0; i--) {
-              T destinationNode = destinationNodes.get(i);
-              if (!visitedNodes.contains(destinationNode)) {
-                stack.push(destinationNode);
-              }
+          // If the destination node has not been visited, it is added to the stack in reverse
+          // order
+          for (int i = core.outEnd(current) - 1; i >= core.outStart(current); i--) {
+            int destinationNode = core.target(i);
+            if (!visited.get(destinationNode)) {
+              stack.push(destinationNode);
             }
           }
         }
       }
     }
     // Returning the visited nodes list
-    return visitedNodes;
+    event.record("iterative depth first", order.length, edgeCount, visitedNodes.size());
+    return toVerticies(visitedNodes);
+  }
+
+  /**
+   * Lazily conducts a breadth first search on the graph. The search only runs as far as the
+   * iterator is advanced, and visits verticies in the same order as {@link
+   * #iterativeBreadthFirstSearch()}.
+   *
+   * @return an iterator over the verticies in the order they are visited.
+   */
+  public Iterator<T> breadthFirstIterator() {
+    return new BreadthFirstIterator<>(rows.get(), verticies, rootIds());
+  }
+
+  /**
+   * Lazily conducts a depth first search on the graph. The search only runs as far as the
+   * iterator is advanced, and visits verticies in the same order as {@link
+   * #iterativeDepthFirstSearch()}.
+   *
+   * @return an iterator over the verticies in the order they are visited.
+   */
+  public Iterator<T> depthFirstIterator() {
+    return new DepthFirstIterator<>(rows.get(), verticies, rootIds());
+  }
+
+  /**
+   * Lazily conducts a breadth first search on the graph, as a sequential stream.
+   *
+   * @return a stream of the verticies in the order they are visited.
+   */
+  public Stream<T> breadthFirstStream() {
+    return toStream(breadthFirstIterator());
+  }
+
+  /**
+   * Lazily conducts a depth first search on the graph, as a sequential stream.
+   *
+   * @return a stream of the verticies in the order they are visited.
+   */
+  public Stream<T> depthFirstStream() {
+    return toStream(depthFirstIterator());
   }
 
   /**
@@ -336,48 +627,53 @@ public class Graph<T extends Comparable<T>> {
    * @return the list of verticies in the order they were visited.
    */
   public List<T> recursiveBreadthFirstSearch() {
-    // Creating a list of the visited nodes, a queue, and a set of the roots
-    List<T> visitedNodes = new ArrayList<>();
-    Set<T> roots = getRoots();
-    Queue<T> queue = new Queue<>();
+    TraversalEvent event = new TraversalEvent();
+    event.begin();
+    // Creating a list of the visited nodes, a bitset of the visited ids, a queue, and a set of
+    // the roots
+    List<Integer> visitedNodes = new ArrayList<>();
+    BitSet visited = new BitSet(order.length);
+    IntQueue queue = new IntQueue();
 
     // Looping through every root
-    for (T vertex : roots) {
+    for (int vertex : rootIds()) {
       // If the root has not been visited, it is added to the queue and the visited nodes list
-      if (!visitedNodes.contains(vertex)) {
+      if (!visited.get(vertex)) {
         queue.enqueue(vertex);
+        visited.set(vertex);
         visitedNodes.add(vertex);
-        // Calling the recursive breadth method
-        recursiveBreadthFirstSearchHelper(queue, visitedNodes);
+        // Calling the recursive breadth method, bouncing each call off a loop
+        Trampoline.run(recursiveBreadthFirstSearchHelper(queue, visitedNodes, visited));
       }
     }
     // Returning the visited nodes list
-    return visitedNodes;
+    event.record("recursive breadth first", order.length, edgeCount, visitedNodes.size());
+    return toVerticies(visitedNodes);
   }
 
-  private void recursiveBreadthFirstSearchHelper(Queue<T> queue, List<T> visitedNodes) {
-    // If the queue is empty, the method is returned
+  private Trampoline recursiveBreadthFirstSearchHelper(
+      IntQueue queue, List<Integer> visitedNodes, BitSet visited) {
+    CompactGraph core = rows.get();
+    // If the queue is empty, the recursion ends
     if (queue.isEmpty()) {
-      return;
+      return null;
     }
     // The current node is removed from the queue
-    T current = queue.peek();
+    int current = queue.peek();
     queue.dequeue();
-    // If the current node has not been visited, it is added to the visited nodes list
-    List<T> destinationNodes = adjacency.get(current);
     // Looping through every destination node of the current node
-    if (destinationNodes != null) {
-      for (T destinationNode : destinationNodes) {
-        // If the destination node has not been visited, it is added to the queue and the visited
-        // nodes list
-        if (!visitedNodes.contains(destinationNode)) {
-          queue.enqueue(destinationNode);
-          visitedNodes.add(destinationNode);
-        }
+    for (int i = core.outStart(current); i < core.outEnd(current); i++) {
+      // If the destination node has not been visited, it is added to the queue and the visited
+      // nodes list
+      int destinationNode = core.target(i);
+      if (!visited.get(destinationNode)) {
+        queue.enqueue(destinationNode);
+        visited.set(destinationNode);
+        visitedNodes.add(destinationNode);
       }
     }
-    // Calling the recursive breadth method
-    recursiveBreadthFirstSearchHelper(queue, visitedNodes);
+    // Returning the recursive breadth call, so the caller makes it without growing the stack
+    return () -> recursiveBreadthFirstSearchHelper(queue, visitedNodes, visited);
   }
 
   /**
@@ -386,47 +682,301 @@ public class Graph<T extends Comparable<T>> {
    * @return the list of verticies in the order they were visited.
    */
   public List<T> recursiveDepthFirstSearch() {
-    // Creating a list of the visited nodes, a stack, and a set of the roots
-    List<T> visitedNodes = new ArrayList<>();
-    Set<T> roots = getRoots();
-    Stack<T> stack = new Stack<>();
+    TraversalEvent event = new TraversalEvent();
+    event.begin();
+    // Creating a list of the visited nodes, a bitset of the visited ids, a stack, and a set of
+    // the roots
+    List<Integer> visitedNodes = new ArrayList<>();
+    BitSet visited = new BitSet(order.length);
+    IntStack stack = new IntStack();
 
     // Looping through every root
-    for (T vertex : roots) {
+    for (int vertex : rootIds()) {
       // If the root has not been visited, it is added to the stack and the visited nodes list
-      if (!visitedNodes.contains(vertex)) {
+      if (!visited.get(vertex)) {
         stack.push(vertex);
-        // Calling the recursive depth method
-        recursiveDepthFirstSearchHelper(stack, visitedNodes);
+        // Calling the recursive depth method, bouncing each call off a loop
+        Trampoline.run(recursiveDepthFirstSearchHelper(stack, visitedNodes, visited));
       }
     }
     // Returning the visited nodes list
-    return visitedNodes;
+    event.record("recursive depth first", order.length, edgeCount, visitedNodes.size());
+    return toVerticies(visitedNodes);
   }
 
-  private void recursiveDepthFirstSearchHelper(Stack<T> stack, List<T> visitedNodes) {
-    // If the stack is empty, the method is returned
+  private Trampoline recursiveDepthFirstSearchHelper(
+      IntStack stack, List<Integer> visitedNodes, BitSet visited) {
+    CompactGraph core = rows.get();
+    // If the stack is empty, the recursion ends
     if (stack.isEmpty()) {
-      return;
+      return null;
     }
     // The current node is removed from the stack
-    T current = stack.pop();
+    int current = stack.pop();
     // If the current node has not been visited, it is added to the visited nodes list
-    if (!visitedNodes.contains(current)) {
+    if (!visited.get(current)) {
+      visited.set(current);
       visitedNodes.add(current);
     }
-    // Looping through every destination node of the current node
-    List<T> destinationNodes = adjacency.get(current);
     // If the destination node has not been visited, it is added to the stack in reverse order
-    if (destinationNodes != null) {
-      for (int i = destinationNodes.size() - 1; i >= 0; i--) {
-        T destinationNode = destinationNodes.get(i);
-        if (!visitedNodes.contains(destinationNode)) {
-          stack.push(destinationNode);
+    for (int i = core.outEnd(current) - 1; i >= core.outStart(current); i--) {
+      int destinationNode = core.target(i);
+      if (!visited.get(destinationNode)) {
+        stack.push(destinationNode);
+      }
+    }
+    // Returning the recursive depth call, so the caller makes it without growing the stack
+    return () -> recursiveDepthFirstSearchHelper(stack, visitedNodes, visited);
+  }
+
+  /**
+   * Gets the number of verticies in the graph.
+   *
+   * @return the number of verticies.
+   */
+  public int vertexCount() {
+    return order.length;
+  }
+
+  /**
+   * Gets the number of edges in the graph.
+   *
+   * @return the number of edges.
+   */
+  public int edgeCount() {
+    return edgeCount;
+  }
+
+  /**
+   * Estimates how much memory the graph holds, including the equivalence partition if it has been
+   * computed. Every vertex is counted as a short label with its map entry, so graphs with long
+   * labels are underestimated.
+   *
+   * @return the estimated size in bytes.
+   */
+  public long estimatedBytes() {
+    long vertexCount = order.length;
+    // the rows in both directions and the order, then the edge set and the verticies
+    long bytes = 4 * (2 * (vertexCount + 1) + 2L * edgeCount + vertexCount);
+    // counting the edge set even before it is built, as it is built the first time it is needed
+    int edgeSlots =
+        edgeSet.isComputed() ? edgeSet.get().capacity() : EdgeSet.capacityFor(edgeCount);
+    bytes += 8L * edgeSlots;
+    bytes += VERTEX_BYTES * vertexCount;
+    if (partition.isComputed()) {
+      bytes += 4 * (2 * vertexCount + partition.get().classCount() + 1);
+    }
+    return bytes;
+  }
+
+  /**
+   * Gets every vertex in the graph.
+   *
+   * @return the verticies, in the order they were added.
+   */
+  public List<T> getVerticies() {
+    return Collections.unmodifiableList(verticies);
+  }
+
+  /**
+   * Gets every edge in the graph.
+   *
+   * @return the edges, grouped by source in the order the sources were added.
+   */
+  public List<Edge<T>> getEdges() {
+    CompactGraph core = rows.get();
+    List<Edge<T>> edges = new ArrayList<>(edgeCount);
+    for (int source = 0; source < order.length; source++) {
+      for (int i = core.outStart(source); i < core.outEnd(source); i++) {
+        edges.add(new Edge<>(verticies.get(source), verticies.get(core.target(i))));
+      }
+    }
+    return edges;
+  }
+
+  /**
+   * Visits every edge in the graph, ordered by source and then by destination, without creating an
+   * edge object for each one.
+   *
+   * @param comparator the order of the verticies.
+   * @param action called with the source and destination of each edge.
+   */
+  public void forEachEdge(Comparator<? super T> comparator, BiConsumer<T, T> action) {
+    CompactGraph core = rows.get();
+    // ranking every vertex once, so each row can be sorted as plain ints
+    Integer[] sorted = new Integer[order.length];
+    for (int id = 0; id < sorted.length; id++) {
+      sorted[id] = id;
+    }
+    Arrays.sort(sorted, (a, b) -> comparator.compare(verticies.get(a), verticies.get(b)));
+    int[] rank = new int[sorted.length];
+    for (int r = 0; r < sorted.length; r++) {
+      rank[sorted[r]] = r;
+    }
+
+    int[] row = new int[0];
+    for (Integer source : sorted) {
+      int start = core.outStart(source);
+      int degree = core.outEnd(source) - start;
+      if (row.length < degree) {
+        row = new int[degree];
+      }
+      for (int i = 0; i < degree; i++) {
+        row[i] = rank[core.target(start + i)];
+      }
+      Arrays.sort(row, 0, degree);
+      for (int i = 0; i < degree; i++) {
+        action.accept(verticies.get(source), verticies.get(sorted[row[i]]));
+      }
+    }
+  }
+
+  /**
+   * Gets the rows of the graph.
+   *
+   * @return the compressed rows.
+   */
+  CompactGraph core() {
+    return rows.get();
+  }
+
+  /**
+   * Gets every vertex id in sorted order.
+   *
+   * @return the vertex ids, smallest first.
+   */
+  int[] order() {
+    return order;
+  }
+
+  /**
+   * Packs the properties that have been computed so far into bits. Each property takes two bits,
+   * one saying if it is known and one holding its value.
+   *
+   * @return the packed properties.
+   */
+  int cachedProperties() {
+    List<Lazy<Boolean>> properties = properties();
+    int bits = 0;
+    for (int i = 0; i < properties.size(); i++) {
+      if (properties.get(i).isComputed()) {
+        bits |= 1 << (2 * i);
+        if (properties.get(i).get()) {
+          bits |= 2 << (2 * i);
         }
       }
     }
-    // Calling the recursive depth method
-    recursiveDepthFirstSearchHelper(stack, visitedNodes);
+    return bits;
+  }
+
+  /**
+   * Supplies properties that are already known, packed by {@link #cachedProperties()}.
+   *
+   * @param bits the packed properties.
+   */
+  void presetProperties(int bits) {
+    List<Lazy<Boolean>> properties = properties();
+    for (int i = 0; i < properties.size(); i++) {
+      if ((bits & (1 << (2 * i))) != 0) {
+        properties.get(i).preset((bits & (2 << (2 * i))) != 0);
+      }
+    }
+  }
+
+  /**
+   * Gets the equivalence partition if it has been computed.
+   *
+   * @return the partition, or null if it has not been computed yet.
+   */
+  EquivalencePartition cachedPartition() {
+    return partition.isComputed() ? partition.get() : null;
+  }
+
+  /**
+   * Supplies an equivalence partition that is already known.
+   *
+   * @param known the partition.
+   */
+  void presetPartition(EquivalencePartition known) {
+    partition.preset(known);
+  }
+
+  /**
+   * Lists the cached properties, in the order they are packed.
+   *
+   * @return the cached properties.
+   */
+  private List<Lazy<Boolean>> properties() {
+    return List.of(reflexive, symmetric, transitive, antiSymmetric, equivalence);
+  }
+
+  /**
+   * Maps every vertex to its id.
+   *
+   * @return the id of each vertex.
+   */
+  private HashMap<T, Integer> indexVerticies() {
+    HashMap<T, Integer> index = new HashMap<T, Integer>(verticies.size() * 2);
+    for (int id = 0; id < verticies.size(); id++) {
+      index.put(verticies.get(id), id);
+    }
+    return index;
+  }
+
+  /**
+   * Collects every edge of the rows into a set, so edges can be looked up directly.
+   *
+   * @return the edge set.
+   */
+  private EdgeSet collectEdges() {
+    CompactGraph core = rows.get();
+    EdgeSet edges = new EdgeSet(edgeCount);
+    for (int source = 0; source < order.length; source++) {
+      for (int i = core.outStart(source); i < core.outEnd(source); i++) {
+        edges.add(source, core.target(i));
+      }
+    }
+    return edges;
+  }
+
+  /**
+   * Wraps a search in a stream, which is ordered and never repeats a vertex.
+   *
+   * @param search the search iterator.
+   * @return the stream.
+   */
+  private Stream<T> toStream(Iterator<T> search) {
+    return StreamSupport.stream(
+        Spliterators.spliteratorUnknownSize(
+            search, Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL),
+        false);
+  }
+
+  /**
+   * Translates a list of vertex ids back into the verticies they were interned from.
+   *
+   * @param vertexIds the vertex ids to translate.
+   * @return the verticies, in the same order as the ids.
+   */
+  private List<T> toVerticies(List<Integer> vertexIds) {
+    List<T> result = new ArrayList<>(vertexIds.size());
+    for (int vertex : vertexIds) {
+      result.add(verticies.get(vertex));
+    }
+    return result;
+  }
+
+  /**
+   * Translates an array of vertex ids back into the verticies they were interned from.
+   *
+   * @param vertexIds the vertex ids to translate.
+   * @return the verticies, in the same order as the ids.
+   */
+  private List<T> toVerticies(int[] vertexIds) {
+    List<T> result = new ArrayList<>(vertexIds.length);
+    for (int vertex : vertexIds) {
+      result.add(verticies.get(vertex));
+    }
+    return result;
   }
 }
@@ -0,0 +1,172 @@
+package nz.ac.auckland.se281.datastructures;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Builds a {@link Graph} one vertex and edge at a time, so a loader can stream a file straight
+ * into the graph without collecting it into sets first.
+ *
+ * <p>Every vertex is interned to a dense integer id as it is added, and edges are stored as pairs
+ * of ids in growable int arrays. Duplicate edges are dropped as they are added.
+ *
+ * @param <T> The type of each vertex, that have a total ordering.
+ */
+public class GraphBuilder<T extends Comparable<T>> {
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private ArrayList<T> verticies;
+  private HashMap<T, Integer> ids;
+  private int[] edgeSources;
+  private int[] edgeTargets;
+  private int edgeCount;
+  private EdgeSet edgeSet;
+
+  /** Constructor for GraphBuilder, starts with an empty graph. */
+  public GraphBuilder() {
+    verticies = new ArrayList<T>();
+    ids = new HashMap<T, Integer>();
+    edgeSources = new int[INITIAL_CAPACITY];
+    edgeTargets = new int[INITIAL_CAPACITY];
+    edgeSet = new EdgeSet(INITIAL_CAPACITY);
+  }
+
+  /**
+   * Adds a vertex to the graph, if it is not already in it.
+   *
+   * @param vertex the vertex to add.
+   * @return the id of the vertex.
+   */
+  public int addVertex(T vertex) {
+    Integer id = ids.get(vertex);
+    if (id == null) {
+      id = verticies.size();
+      verticies.add(vertex);
+      ids.put(vertex, id);
+    }
+    return id;
+  }
+
+  /**
+   * Adds an edge between two verticies, adding the verticies too if they are not in the graph.
+   *
+   * @param source the source vertex.
+   * @param destination the destination vertex.
+   * @return true if the edge was added, false if it was already in the graph.
+   */
+  public boolean addEdge(T source, T destination) {
+    return addEdge(addVertex(source), addVertex(destination));
+  }
+
+  /**
+   * Adds an edge between two verticies that have already been added.
+   *
+   * @param source the id returned when the source vertex was added.
+   * @param destination the id returned when the destination vertex was added.
+   * @return true if the edge was added, false if it was already in the graph.
+   */
+  public boolean addEdge(int source, int destination) {
+    if (source < 0 || source >= verticies.size()) {
+      throw new IndexOutOfBoundsException("Unknown source vertex id " + source);
+    }
+    if (destination < 0 || destination >= verticies.size()) {
+      throw new IndexOutOfBoundsException("Unknown destination vertex id " + destination);
+    }
+    if (!edgeSet.add(source, destination)) {
+      return false;
+    }
+    // double the edge arrays if they are full
+    if (edgeCount == edgeSources.length) {
+      edgeSources = Arrays.copyOf(edgeSources, edgeCount * 2);
+      edgeTargets = Arrays.copyOf(edgeTargets, edgeCount * 2);
+    }
+    edgeSources[edgeCount] = source;
+    edgeTargets[edgeCount] = destination;
+    edgeCount++;
+    return true;
+  }
+
+  /**
+   * Checks if a vertex has been added.
+   *
+   * @param vertex the vertex to look for.
+   * @return true if the vertex has been added, false otherwise.
+   */
+  public boolean containsVertex(T vertex) {
+    return ids.containsKey(vertex);
+  }
+
+  /**
+   * Gets the number of verticies added so far.
+   *
+   * @return the number of verticies.
+   */
+  public int vertexCount() {
+    return verticies.size();
+  }
+
+  /**
+   * Gets the number of distinct edges added so far.
+   *
+   * @return the number of edges.
+   */
+  public int edgeCount() {
+    return edgeCount;
+  }
+
+  /**
+   * Builds the graph from everything added so far. The builder should not be used afterwards.
+   *
+   * @return the graph.
+   */
+  public Graph<T> build() {
+    return new Graph<T>(this);
+  }
+
+  /**
+   * Gets every vertex added so far, indexed by its id.
+   *
+   * @return the verticies.
+   */
+  ArrayList<T> verticies() {
+    return verticies;
+  }
+
+  /**
+   * Gets the id of every vertex added so far.
+   *
+   * @return the ids, keyed by vertex.
+   */
+  HashMap<T, Integer> ids() {
+    return ids;
+  }
+
+  /**
+   * Gets the source id of every edge added so far.
+   *
+   * @return the source ids, in the first {@link #edgeCount()} entries.
+   */
+  int[] edgeSources() {
+    return edgeSources;
+  }
+
+  /**
+   * Gets the destination id of every edge added so far.
+   *
+   * @return the destination ids, in the first {@link #edgeCount()} entries.
+   */
+  int[] edgeTargets() {
+    return edgeTargets;
+  }
+
+  /**
+   * Gets the set of every edge added so far.
+   *
+   * @return the edge set.
+   */
+  EdgeSet edgeSet() {
+    return edgeSet;
+  }
+}
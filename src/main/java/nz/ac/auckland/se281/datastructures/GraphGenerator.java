@@ -0,0 +1,271 @@
+package nz.ac.auckland.se281.datastructures;
+
+import java.util.BitSet;
+import java.util.SplittableRandom;
+import java.util.function.IntConsumer;
+
+/**
+ * Generates synthetic graphs of a chosen shape and size, for testing the graph algorithms at scale.
+ *
+ * <p>Every vertex is labelled with its id, from {@code 0} to one less than the number of verticies.
+ * The edges are generated from a seed, so the same shape, sizes and seed always give the same
+ * graph. They are streamed one at a time, so a graph can be written to a file without ever being
+ * held in memory, and only the random shapes keep a set of the edges so far to skip duplicates.
+ * How each shape uses the number of edges asked for is described on {@link Shape}.
+ */
+public class GraphGenerator {
+
+  /**
+   * The most verticies a generator can be asked for, so the labels of a generated graph always fit
+   * in memory.
+   */
+  public static final int MAX_VERTICES = 1 << 24;
+
+  /** The most edges a generator can be asked for, so the edge set always fits in an array. */
+  public static final int MAX_EDGES = 1 << 28;
+
+  /** The shapes of graph that can be generated. */
+  public enum Shape {
+    /** Edges between uniformly random verticies, with exactly the number of edges asked for. */
+    ERDOS_RENYI,
+    /**
+     * Edges from uniformly random verticies, where half the targets copy the target of an earlier
+     * edge, so in degrees follow a power law. It has exactly the number of edges asked for.
+     */
+    POWER_LAW,
+    /** A single path through every vertex, ignoring the number of edges. */
+    CHAIN,
+    /** A square grid with edges to the right and down, ignoring the number of edges. */
+    GRID,
+    /**
+     * Disjoint cliques with self loops, sized so there are about as many edges as asked for. The
+     * graph is always an equivalence relation.
+     */
+    CLIQUES,
+    /**
+     * Disjoint groups where every vertex has an edge to every later vertex in its group, sized so
+     * there are about as many edges as asked for. One edge is left out of each group of three or
+     * more, so the graph is acyclic and only just not transitive.
+     */
+    NEAR_TRANSITIVE_DAG
+  }
+
+  /** Receives each generated edge. */
+  @FunctionalInterface
+  public interface EdgeConsumer {
+    /**
+     * Receives an edge.
+     *
+     * @param source the id of the source vertex.
+     * @param destination the id of the destination vertex.
+     */
+    void accept(int source, int destination);
+  }
+
+  private final Shape shape;
+  private final int vertexCount;
+  private final int edgeCount;
+  private final long seed;
+
+  /**
+   * Constructor for GraphGenerator.
+   *
+   * @param shape the shape of the graph.
+   * @param vertexCount the number of verticies, from one to {@link #MAX_VERTICES}.
+   * @param edgeCount the number of edges to aim for, see {@link Shape}.
+   * @param seed the seed of the random edges.
+   * @throws IllegalArgumentException if the number of verticies is not from one to {@link
+   *     #MAX_VERTICES}, the number of edges is negative or over {@link #MAX_EDGES}, or a random
+   *     shape is asked for more edges than there are pairs of verticies.
+   */
+  public GraphGenerator(Shape shape, int vertexCount, int edgeCount, long seed) {
+    if (vertexCount < 1 || vertexCount > MAX_VERTICES) {
+      throw new IllegalArgumentException(
+          "the number of verticies must be from 1 to " + MAX_VERTICES);
+    }
+    if (edgeCount < 0 || edgeCount > MAX_EDGES) {
+      throw new IllegalArgumentException("the number of edges must be from 0 to " + MAX_EDGES);
+    }
+    long pairs = (long) vertexCount * vertexCount;
+    if ((shape == Shape.ERDOS_RENYI || shape == Shape.POWER_LAW) && edgeCount > pairs) {
+      throw new IllegalArgumentException(
+          vertexCount + " verticies can have at most " + pairs + " edges");
+    }
+    this.shape = shape;
+    this.vertexCount = vertexCount;
+    this.edgeCount = edgeCount;
+    this.seed = seed;
+  }
+
+  /**
+   * Gets the shape of the graph.
+   *
+   * @return the shape.
+   */
+  public Shape getShape() {
+    return shape;
+  }
+
+  /**
+   * Gets the number of verticies in the graph.
+   *
+   * @return the number of verticies.
+   */
+  public int vertexCount() {
+    return vertexCount;
+  }
+
+  /**
+   * Generates the graph, handing over every edge and then every vertex that has no edges. Each call
+   * generates the same graph in the same order.
+   *
+   * @param edges receives every edge.
+   * @param isolatedVerticies receives the id of every vertex that is not in any edge.
+   */
+  public void generate(EdgeConsumer edges, IntConsumer isolatedVerticies) {
+    BitSet connected = new BitSet(vertexCount);
+    EdgeConsumer tracked =
+        (source, destination) -> {
+          connected.set(source);
+          connected.set(destination);
+          edges.accept(source, destination);
+        };
+    switch (shape) {
+      case ERDOS_RENYI:
+        generateRandom(tracked, false);
+        break;
+      case POWER_LAW:
+        generateRandom(tracked, true);
+        break;
+      case CHAIN:
+        for (int vertex = 0; vertex + 1 < vertexCount; vertex++) {
+          tracked.accept(vertex, vertex + 1);
+        }
+        break;
+      case GRID:
+        generateGrid(tracked);
+        break;
+      case CLIQUES:
+        generateCliques(tracked);
+        break;
+      default:
+        generateNearTransitive(tracked);
+        break;
+    }
+    for (int vertex = connected.nextClearBit(0);
+        vertex < vertexCount;
+        vertex = connected.nextClearBit(vertex + 1)) {
+      isolatedVerticies.accept(vertex);
+    }
+  }
+
+  /**
+   * Generates the graph and builds it.
+   *
+   * @return the graph, with every vertex labelled with its id.
+   */
+  public Graph<String> build() {
+    GraphBuilder<String> builder = new GraphBuilder<>();
+    // adding the verticies in id order first, so each edge can be added by id
+    for (int vertex = 0; vertex < vertexCount; vertex++) {
+      builder.addVertex(String.valueOf(vertex));
+    }
+    generate(builder::addEdge, vertex -> {});
+    return builder.build();
+  }
+
+  /**
+   * Generates distinct random edges until there are as many as asked for.
+   *
+   * @param edges receives every edge.
+   * @param preferential if half the targets should copy the target of an earlier edge.
+   */
+  private void generateRandom(EdgeConsumer edges, boolean preferential) {
+    SplittableRandom random = new SplittableRandom(seed);
+    EdgeSet seen = new EdgeSet(edgeCount);
+    int[] targets = preferential ? new int[edgeCount] : null;
+    int added = 0;
+    while (added < edgeCount) {
+      int source = random.nextInt(vertexCount);
+      int destination;
+      if (preferential && added > 0 && random.nextBoolean()) {
+        // copying an earlier target picks each vertex in proportion to its in degree
+        destination = targets[random.nextInt(added)];
+      } else {
+        destination = random.nextInt(vertexCount);
+      }
+      if (seen.add(source, destination)) {
+        if (preferential) {
+          targets[added] = destination;
+        }
+        added++;
+        edges.accept(source, destination);
+      }
+    }
+  }
+
+  /**
+   * Generates a square grid, filled row by row, with edges to the right and down.
+   *
+   * @param edges receives every edge.
+   */
+  private void generateGrid(EdgeConsumer edges) {
+    int side = (int) Math.ceil(Math.sqrt(vertexCount));
+    for (int vertex = 0; vertex < vertexCount; vertex++) {
+      if ((vertex + 1) % side != 0 && vertex + 1 < vertexCount) {
+        edges.accept(vertex, vertex + 1);
+      }
+      if (vertex + side < vertexCount) {
+        edges.accept(vertex, vertex + side);
+      }
+    }
+  }
+
+  /**
+   * Generates disjoint cliques of consecutive verticies, with a self loop on every vertex.
+   *
+   * @param edges receives every edge.
+   */
+  private void generateCliques(EdgeConsumer edges) {
+    // each vertex has an edge to every vertex in its clique, itself included
+    int size = Math.max(1, Math.min(vertexCount, edgeCount / vertexCount));
+    for (int start = 0; start < vertexCount; start += size) {
+      int end = Math.min(vertexCount, start + size);
+      for (int source = start; source < end; source++) {
+        for (int destination = start; destination < end; destination++) {
+          edges.accept(source, destination);
+        }
+      }
+    }
+  }
+
+  /**
+   * Generates disjoint groups of consecutive verticies, each with an edge from every vertex to
+   * every later one, less one random edge that is not between neighbours.
+   *
+   * @param edges receives every edge.
+   */
+  private void generateNearTransitive(EdgeConsumer edges) {
+    SplittableRandom random = new SplittableRandom(seed);
+    // a group of k verticies has k(k - 1) / 2 edges, so n / k groups have about n(k - 1) / 2
+    long wanted = 2L * edgeCount / vertexCount + 1;
+    int size = (int) Math.max(2, Math.min(vertexCount, wanted));
+    for (int start = 0; start < vertexCount; start += size) {
+      int end = Math.min(vertexCount, start + size);
+      int skippedSource = -1;
+      int skippedDestination = -1;
+      if (end - start >= 3) {
+        // leaving out an edge that spans a vertex breaks transitivity through that vertex
+        skippedSource = start + random.nextInt(end - start - 2);
+        skippedDestination = random.nextInt(skippedSource + 2, end);
+      }
+      for (int source = start; source < end; source++) {
+        for (int destination = source + 1; destination < end; destination++) {
+          if (source != skippedSource || destination != skippedDestination) {
+            edges.accept(source, destination);
+          }
+        }
+      }
+    }
+  }
+}
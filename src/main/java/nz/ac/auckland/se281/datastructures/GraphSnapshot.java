@@ -0,0 +1,493 @@
+package nz.ac.auckland.se281.datastructures;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.zip.CRC32C;
+
+/**
+ * A graph saved in a versioned binary layout, so it can be loaded again without parsing its source
+ * file.
+ *
+ * <p>The file is a 72 byte header, a table of section checksums, then int sections, all little
+ * endian and 4 byte aligned: the source file name, the vertex label dictionary (offsets then UTF-8
+ * bytes), the vertex order, the outgoing and incoming compressed rows, and optionally the
+ * equivalence partition. The header also holds the properties that had been computed when it was
+ * saved, the checksum, length and modified time of the source file, and a CRC32C of the checksum
+ * table.
+ *
+ * <p>Loading maps the file with {@link FileChannel#map}. Only the sections that grow with the
+ * verticies are checked and copied when the file is opened. The rows, which grow with the edges,
+ * are read in place from the mapping and checked the first time the graph needs them, so opening
+ * a snapshot does not touch most of the file.
+ */
+public class GraphSnapshot {
+
+  private static final int MAGIC = 0x47534e50;
+  private static final int VERSION = 3;
+  private static final int HEADER_BYTES = 72;
+  private static final int HAS_PARTITION = 1;
+
+  // The sections, in the order they are laid out
+  private static final int NAME = 0;
+  private static final int LABEL_OFFSETS = 1;
+  private static final int LABELS = 2;
+  private static final int ORDER = 3;
+  private static final int OFFSETS = 4;
+  private static final int TARGETS = 5;
+  private static final int IN_OFFSETS = 6;
+  private static final int SOURCES = 7;
+  private static final int CLASS_OFFSETS = 8;
+  private static final int MEMBERS = 9;
+  private static final int CLASS_OF = 10;
+  private static final int SECTIONS = 11;
+  private static final int TABLE_BYTES = 4 * SECTIONS;
+
+  private final Graph<String> graph;
+  private final String sourceName;
+  private final long sourceChecksum;
+  private final long sourceLength;
+  private final long sourceModified;
+
+  /**
+   * Constructor for GraphSnapshot.
+   *
+   * @param graph the loaded graph.
+   * @param sourceName the name of the file the graph was parsed from.
+   * @param sourceChecksum the checksum of the source file.
+   * @param sourceLength the length of the source file in bytes.
+   * @param sourceModified the time the source file was last modified, in milliseconds.
+   */
+  private GraphSnapshot(
+      Graph<String> graph,
+      String sourceName,
+      long sourceChecksum,
+      long sourceLength,
+      long sourceModified) {
+    this.graph = graph;
+    this.sourceName = sourceName;
+    this.sourceChecksum = sourceChecksum;
+    this.sourceLength = sourceLength;
+    this.sourceModified = sourceModified;
+  }
+
+  /**
+   * Writes a graph to a snapshot file, along with any properties already computed for it.
+   *
+   * @param graph the graph to save.
+   * @param sourceName the name of the file the graph was parsed from.
+   * @param sourceChecksum the checksum of the source file.
+   * @param sourceLength the length of the source file in bytes.
+   * @param sourceModified the time the source file was last modified, in milliseconds.
+   * @param path the snapshot file to write.
+   * @throws IOException if the file cannot be written.
+   */
+  public static void write(
+      Graph<String> graph,
+      String sourceName,
+      long sourceChecksum,
+      long sourceLength,
+      long sourceModified,
+      Path path)
+      throws IOException {
+    CompactGraph core = graph.core();
+    EquivalencePartition partition = graph.cachedPartition();
+    int vertexCount = core.vertexCount();
+    int edgeCount = core.edgeCount();
+
+    // encoding every label up front so the dictionary size is known
+    byte[][] labels = new byte[vertexCount][];
+    int[] labelOffsets = new int[vertexCount + 1];
+    for (int id = 0; id < vertexCount; id++) {
+      labels[id] = graph.getVerticies().get(id).getBytes(StandardCharsets.UTF_8);
+      labelOffsets[id + 1] = labelOffsets[id] + labels[id].length;
+    }
+    byte[] name = sourceName.getBytes(StandardCharsets.UTF_8);
+
+    long[] bounds =
+        bounds(
+            name.length,
+            labelOffsets[vertexCount],
+            vertexCount,
+            edgeCount,
+            partition == null ? -1 : partition.classCount());
+    if (bounds[SECTIONS] > Integer.MAX_VALUE) {
+      throw new IOException("graph is too large for a snapshot");
+    }
+
+    ByteBuffer payload =
+        ByteBuffer.allocate((int) (bounds[SECTIONS] - bounds[0])).order(ByteOrder.LITTLE_ENDIAN);
+    payload.put(name);
+    pad(payload);
+    putInts(payload, IntBuffer.wrap(labelOffsets));
+    for (byte[] label : labels) {
+      payload.put(label);
+    }
+    pad(payload);
+    putInts(payload, IntBuffer.wrap(graph.order()));
+    putInts(payload, core.offsets());
+    putInts(payload, core.targets());
+    putInts(payload, core.inOffsets());
+    putInts(payload, core.sources());
+    if (partition != null) {
+      putInts(payload, IntBuffer.wrap(partition.classOffsets()));
+      putInts(payload, IntBuffer.wrap(partition.members()));
+      putInts(payload, IntBuffer.wrap(partition.classOf()));
+    }
+    payload.flip();
+
+    // checking each section on its own, so the rows can be checked only once they are used
+    ByteBuffer table = ByteBuffer.allocate(TABLE_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    for (int section = 0; section < SECTIONS; section++) {
+      table.putInt(
+          crc(
+              payload.slice(
+                  (int) (bounds[section] - bounds[0]),
+                  (int) (bounds[section + 1] - bounds[section]))));
+    }
+    table.flip();
+
+    ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    header.putInt(MAGIC);
+    header.putInt(VERSION);
+    header.putInt(partition == null ? 0 : HAS_PARTITION);
+    header.putInt(graph.cachedProperties());
+    header.putInt(vertexCount);
+    header.putInt(edgeCount);
+    header.putInt(partition == null ? 0 : partition.classCount());
+    header.putInt(labelOffsets[vertexCount]);
+    header.putLong(sourceChecksum);
+    header.putLong(sourceLength);
+    header.putLong(crc(table.duplicate()));
+    header.putLong(sourceModified);
+    header.putInt(name.length);
+    // the rest of the header is reserved, so the whole of it is written
+    header.rewind();
+
+    try (FileChannel channel =
+        FileChannel.open(
+            path,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer[] buffers = {header, table, payload};
+      while (payload.hasRemaining()) {
+        channel.write(buffers);
+      }
+    }
+  }
+
+  /**
+   * Loads a snapshot file written by {@link #write}. The rows of the graph stay in the mapped
+   * file, and are only checked the first time they are used, which throws an {@link
+   * UncheckedIOException} if they turn out to be corrupt.
+   *
+   * @param path the snapshot file to read.
+   * @return the loaded snapshot.
+   * @throws IOException if the file cannot be read, or is not a valid snapshot.
+   */
+  public static GraphSnapshot read(Path path) throws IOException {
+    MappedByteBuffer mapped;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size < HEADER_BYTES + TABLE_BYTES) {
+        throw new IOException("not a graph snapshot");
+      }
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException("snapshot is too large to map");
+      }
+      // the mapping stays valid after the channel is closed
+      mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    }
+    mapped.order(ByteOrder.LITTLE_ENDIAN);
+
+    if (mapped.getInt(0) != MAGIC) {
+      throw new IOException("not a graph snapshot");
+    }
+    if (mapped.getInt(4) != VERSION) {
+      throw new IOException("unsupported snapshot version " + mapped.getInt(4));
+    }
+    int flags = mapped.getInt(8);
+    int properties = mapped.getInt(12);
+    int vertexCount = mapped.getInt(16);
+    int edgeCount = mapped.getInt(20);
+    int classCount = mapped.getInt(24);
+    int labelBytes = mapped.getInt(28);
+    long sourceChecksum = mapped.getLong(32);
+    long sourceLength = mapped.getLong(40);
+    long tableCrc = mapped.getLong(48);
+    long sourceModified = mapped.getLong(56);
+    int nameBytes = mapped.getInt(64);
+
+    boolean hasPartition = (flags & HAS_PARTITION) != 0;
+    if (vertexCount < 0 || edgeCount < 0 || classCount < 0 || labelBytes < 0 || nameBytes < 0) {
+      throw new IOException("snapshot is corrupt");
+    }
+    long[] bounds =
+        bounds(nameBytes, labelBytes, vertexCount, edgeCount, hasPartition ? classCount : -1);
+    if (bounds[SECTIONS] != mapped.capacity()
+        || crc(mapped.slice(HEADER_BYTES, TABLE_BYTES)) != tableCrc) {
+      throw new IOException("snapshot is corrupt");
+    }
+    int[] crcs = new int[SECTIONS];
+    mapped.slice(HEADER_BYTES, TABLE_BYTES).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(crcs);
+
+    // the sections that grow with the verticies are checked and copied straight away
+    for (int section : new int[] {NAME, LABEL_OFFSETS, LABELS, ORDER}) {
+      verify(mapped, bounds, crcs, section);
+    }
+    if (hasPartition) {
+      for (int section : new int[] {CLASS_OFFSETS, MEMBERS, CLASS_OF}) {
+        verify(mapped, bounds, crcs, section);
+      }
+    }
+
+    try {
+      byte[] name = new byte[nameBytes];
+      section(mapped, bounds, NAME).get(name);
+
+      int[] labelOffsets = getInts(mapped, bounds, LABEL_OFFSETS, vertexCount + 1);
+      byte[] labelData = new byte[labelBytes];
+      section(mapped, bounds, LABELS).get(labelData);
+      ArrayList<String> verticies = new ArrayList<String>(vertexCount);
+      for (int id = 0; id < vertexCount; id++) {
+        verticies.add(
+            new String(
+                labelData,
+                labelOffsets[id],
+                labelOffsets[id + 1] - labelOffsets[id],
+                StandardCharsets.UTF_8));
+      }
+
+      int[] order = getInts(mapped, bounds, ORDER, vertexCount);
+      Graph<String> graph =
+          new Graph<String>(
+              verticies,
+              order,
+              edgeCount,
+              new Lazy<>(() -> mapRows(mapped, bounds, crcs, vertexCount)));
+
+      graph.presetProperties(properties);
+      if (hasPartition) {
+        int[] classOffsets = getInts(mapped, bounds, CLASS_OFFSETS, classCount + 1);
+        int[] members = getInts(mapped, bounds, MEMBERS, vertexCount);
+        int[] classOf = getInts(mapped, bounds, CLASS_OF, vertexCount);
+        graph.presetPartition(new EquivalencePartition(classOf, classOffsets, members));
+      }
+
+      return new GraphSnapshot(
+          graph,
+          new String(name, StandardCharsets.UTF_8),
+          sourceChecksum,
+          sourceLength,
+          sourceModified);
+    } catch (RuntimeException e) {
+      // the checksums matched but the sections do not fit the header
+      throw new IOException("snapshot is corrupt", e);
+    }
+  }
+
+  /**
+   * Checks the rows of a mapped snapshot and wraps them without copying.
+   *
+   * @param mapped the mapped snapshot file.
+   * @param bounds the start of every section, with the end of the file at the end.
+   * @param crcs the checksum of every section.
+   * @param vertexCount the number of verticies in the graph.
+   * @return the rows of the graph, read from the mapping.
+   * @throws UncheckedIOException if any of the rows are corrupt.
+   */
+  private static CompactGraph mapRows(
+      ByteBuffer mapped, long[] bounds, int[] crcs, int vertexCount) {
+    try {
+      for (int section = OFFSETS; section <= SOURCES; section++) {
+        verify(mapped, bounds, crcs, section);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return new CompactGraph(
+        vertexCount,
+        section(mapped, bounds, OFFSETS).asIntBuffer(),
+        section(mapped, bounds, TARGETS).asIntBuffer(),
+        section(mapped, bounds, IN_OFFSETS).asIntBuffer(),
+        section(mapped, bounds, SOURCES).asIntBuffer());
+  }
+
+  /**
+   * Gets the loaded graph.
+   *
+   * @return the graph.
+   */
+  public Graph<String> getGraph() {
+    return graph;
+  }
+
+  /**
+   * Gets the name of the file the graph was parsed from.
+   *
+   * @return the source file name.
+   */
+  public String getSourceName() {
+    return sourceName;
+  }
+
+  /**
+   * Gets the checksum of the file the graph was parsed from.
+   *
+   * @return the source checksum.
+   */
+  public long getSourceChecksum() {
+    return sourceChecksum;
+  }
+
+  /**
+   * Gets the length of the file the graph was parsed from.
+   *
+   * @return the source length in bytes.
+   */
+  public long getSourceLength() {
+    return sourceLength;
+  }
+
+  /**
+   * Gets the time the file the graph was parsed from was last modified.
+   *
+   * @return the source modified time in milliseconds.
+   */
+  public long getSourceModified() {
+    return sourceModified;
+  }
+
+  /**
+   * Rounds a byte count up to a whole number of ints.
+   *
+   * @param bytes the byte count.
+   * @return the padded byte count.
+   */
+  private static long padded(int bytes) {
+    return (bytes + 3L) & ~3L;
+  }
+
+  /**
+   * Writes zero bytes until the buffer is int aligned.
+   *
+   * @param buffer the buffer being written.
+   */
+  private static void pad(ByteBuffer buffer) {
+    while ((buffer.position() & 3) != 0) {
+      buffer.put((byte) 0);
+    }
+  }
+
+  /**
+   * Works out where every section starts from the sizes in the header.
+   *
+   * @param nameBytes the length of the source file name in bytes.
+   * @param labelBytes the length of every label together in bytes.
+   * @param vertexCount the number of verticies.
+   * @param edgeCount the number of edges.
+   * @param classCount the number of equivalence classes, or -1 if there is no partition.
+   * @return the start of every section in the file, with the end of the file at the end.
+   */
+  private static long[] bounds(
+      int nameBytes, int labelBytes, int vertexCount, int edgeCount, int classCount) {
+    long[] lengths = new long[SECTIONS];
+    lengths[NAME] = padded(nameBytes);
+    lengths[LABEL_OFFSETS] = 4L * (vertexCount + 1);
+    lengths[LABELS] = padded(labelBytes);
+    lengths[ORDER] = 4L * vertexCount;
+    lengths[OFFSETS] = 4L * (vertexCount + 1);
+    lengths[TARGETS] = 4L * edgeCount;
+    lengths[IN_OFFSETS] = 4L * (vertexCount + 1);
+    lengths[SOURCES] = 4L * edgeCount;
+    if (classCount >= 0) {
+      lengths[CLASS_OFFSETS] = 4L * (classCount + 1);
+      lengths[MEMBERS] = 4L * vertexCount;
+      lengths[CLASS_OF] = 4L * vertexCount;
+    }
+    long[] bounds = new long[SECTIONS + 1];
+    bounds[0] = HEADER_BYTES + TABLE_BYTES;
+    for (int section = 0; section < SECTIONS; section++) {
+      bounds[section + 1] = bounds[section] + lengths[section];
+    }
+    return bounds;
+  }
+
+  /**
+   * Gets a section of a mapped snapshot, without copying it.
+   *
+   * @param mapped the mapped snapshot file.
+   * @param bounds the start of every section, with the end of the file at the end.
+   * @param section the section.
+   * @return a little endian view of the section.
+   */
+  private static ByteBuffer section(ByteBuffer mapped, long[] bounds, int section) {
+    return mapped
+        .slice((int) bounds[section], (int) (bounds[section + 1] - bounds[section]))
+        .order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * Checks a section of a mapped snapshot against its checksum.
+   *
+   * @param mapped the mapped snapshot file.
+   * @param bounds the start of every section, with the end of the file at the end.
+   * @param crcs the checksum of every section.
+   * @param section the section to check.
+   * @throws IOException if the section is corrupt.
+   */
+  private static void verify(ByteBuffer mapped, long[] bounds, int[] crcs, int section)
+      throws IOException {
+    if (crc(section(mapped, bounds, section)) != crcs[section]) {
+      throw new IOException("snapshot is corrupt");
+    }
+  }
+
+  /**
+   * Computes the CRC32C of the remaining bytes of a buffer.
+   *
+   * @param bytes the bytes to check.
+   * @return the checksum.
+   */
+  private static int crc(ByteBuffer bytes) {
+    CRC32C crc = new CRC32C();
+    crc.update(bytes);
+    return (int) crc.getValue();
+  }
+
+  /**
+   * Writes a section of ints.
+   *
+   * @param buffer the buffer being written.
+   * @param values the values to write.
+   */
+  private static void putInts(ByteBuffer buffer, IntBuffer values) {
+    int length = values.remaining();
+    buffer.asIntBuffer().put(values);
+    buffer.position(buffer.position() + 4 * length);
+  }
+
+  /**
+   * Copies a section of a mapped snapshot into a new int array.
+   *
+   * @param mapped the mapped snapshot file.
+   * @param bounds the start of every section, with the end of the file at the end.
+   * @param section the section to copy.
+   * @param length the number of ints in the section.
+   * @return the values.
+   */
+  private static int[] getInts(ByteBuffer mapped, long[] bounds, int section, int length) {
+    int[] values = new int[length];
+    section(mapped, bounds, section).asIntBuffer().get(values);
+    return values;
+  }
+}
@@ -0,0 +1,84 @@
+package nz.ac.auckland.se281.datastructures;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A class representing a queue of primitive ints, such as vertex ids.
+ *
+ * <p>The queue is a ring buffer over an int array whose capacity is a power of two, so every
+ * operation is amortised O(1) and nothing is boxed or allocated per element.
+ */
+class IntQueue {
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private int[] elements;
+  private int head;
+  private int size;
+
+  /** Constructor for IntQueue, initialises queue as an empty ring buffer. */
+  IntQueue() {
+    elements = new int[INITIAL_CAPACITY];
+  }
+
+  /**
+   * Adds a new value to the end of the queue.
+   *
+   * @param value the value to add.
+   */
+  void enqueue(int value) {
+    // double the buffer if it is full
+    if (size == elements.length) {
+      int[] grown = new int[elements.length * 2];
+      int firstPart = elements.length - head;
+      System.arraycopy(elements, head, grown, 0, firstPart);
+      System.arraycopy(elements, 0, grown, firstPart, head);
+      elements = grown;
+      head = 0;
+    }
+    elements[(head + size) & (elements.length - 1)] = value;
+    size++;
+  }
+
+  /**
+   * Removes the first value from the queue.
+   *
+   * @return the value being removed.
+   */
+  int dequeue() {
+    int value = peek();
+    head = (head + 1) & (elements.length - 1);
+    size--;
+    return value;
+  }
+
+  /**
+   * Returns the first value in the queue.
+   *
+   * @return the first value.
+   */
+  int peek() {
+    if (size == 0) {
+      throw new NoSuchElementException("The queue is empty");
+    }
+    return elements[head];
+  }
+
+  /**
+   * Computes the size of the queue.
+   *
+   * @return the number of values in the queue.
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Computes whether the queue is empty or not.
+   *
+   * @return true if the queue is empty, false otherwise.
+   */
+  boolean isEmpty() {
+    return size == 0;
+  }
+}
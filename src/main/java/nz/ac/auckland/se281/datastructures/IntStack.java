@@ -0,0 +1,77 @@
+package nz.ac.auckland.se281.datastructures;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A class representing a stack of primitive ints, such as vertex ids.
+ *
+ * <p>The stack is a growable int array, so every operation is amortised O(1) and nothing is boxed
+ * or allocated per element.
+ */
+class IntStack {
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private int[] elements;
+  private int size;
+
+  /** Constructor for IntStack, initialises stack as an empty array. */
+  IntStack() {
+    elements = new int[INITIAL_CAPACITY];
+  }
+
+  /**
+   * Adds a new value to the top of the stack.
+   *
+   * @param value the value to add.
+   */
+  void push(int value) {
+    // double the array if it is full
+    if (size == elements.length) {
+      elements = Arrays.copyOf(elements, elements.length * 2);
+    }
+    elements[size++] = value;
+  }
+
+  /**
+   * Removes the top value from the stack.
+   *
+   * @return the value being removed.
+   */
+  int pop() {
+    int value = peek();
+    size--;
+    return value;
+  }
+
+  /**
+   * Returns the top value in the stack.
+   *
+   * @return the top value.
+   */
+  int peek() {
+    if (size == 0) {
+      throw new NoSuchElementException("The stack is empty");
+    }
+    return elements[size - 1];
+  }
+
+  /**
+   * Computes the size of the stack.
+   *
+   * @return the number of values in the stack.
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Checks if the stack is empty.
+   *
+   * @return true if the stack is empty, false otherwise.
+   */
+  boolean isEmpty() {
+    return size == 0;
+  }
+}
@@ -0,0 +1,79 @@
+package nz.ac.auckland.se281.datastructures;
+
+import java.util.function.Supplier;
+
+/**
+ * A value that is computed the first time it is needed, and then remembered.
+ *
+ * <p>It is safe to share between threads: the value is computed at most once, and every thread
+ * sees the same result.
+ *
+ * @param <V> the type of the value.
+ */
+class Lazy<V> {
+
+  private final Supplier<V> supplier;
+  private volatile V value;
+
+  /**
+   * Constructor for Lazy.
+   *
+   * @param supplier computes the value when it is first needed.
+   */
+  Lazy(Supplier<V> supplier) {
+    this.supplier = supplier;
+  }
+
+  /**
+   * Wraps a value that is already known.
+   *
+   * @param <V> the type of the value.
+   * @param known the value.
+   * @return a lazy value that never needs computing.
+   */
+  static <V> Lazy<V> of(V known) {
+    Lazy<V> lazy = new Lazy<>(() -> known);
+    lazy.value = known;
+    return lazy;
+  }
+
+  /**
+   * Gets the value, computing it if this is the first call.
+   *
+   * @return the value.
+   */
+  V get() {
+    V result = value;
+    if (result == null) {
+      synchronized (this) {
+        result = value;
+        if (result == null) {
+          result = supplier.get();
+          value = result;
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Supplies a value that is already known, such as one loaded from a file, if the value has not
+   * been computed yet.
+   *
+   * @param known the known value.
+   */
+  synchronized void preset(V known) {
+    if (value == null) {
+      value = known;
+    }
+  }
+
+  /**
+   * Checks if the value has already been computed.
+   *
+   * @return true if the value is available without computing it, false otherwise.
+   */
+  boolean isComputed() {
+    return value != null;
+  }
+}
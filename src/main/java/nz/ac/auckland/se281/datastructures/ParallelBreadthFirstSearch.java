@@ -0,0 +1,321 @@
+package nz.ac.auckland.se281.datastructures;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.IntConsumer;
+
+/**
+ * A breadth first search that expands each level of the search across the common fork join pool,
+ * and still visits verticies in exactly the same order as the sequential search.
+ *
+ * <p>The verticies are visited into one array, so each level is a slice of it. Every vertex claims
+ * the position of its parent in that array, and a parent earlier in the level always wins, so when
+ * the level is finished each new vertex knows the same parent the sequential search would have
+ * given it. The new level is then written out parent by parent, with each parent's verticies in
+ * the order of its row.
+ *
+ * <p>Each level is expanded top down, from the edges out of the level, or bottom up, from the edges
+ * into the verticies not yet visited, whichever has fewer edges to look at. Small levels are
+ * expanded top down on the calling thread.
+ */
+class ParallelBreadthFirstSearch {
+
+  // The fewest edges out of a level before it is expanded in parallel
+  private static final int PARALLEL_LEVEL_EDGES = 1 << 12;
+  // Splitting each level into several chunks per worker, so a worker stuck on a busy vertex gets
+  // help
+  private static final int CHUNKS_PER_WORKER = 8;
+  private static final int UNVISITED = Integer.MAX_VALUE;
+  private static final int ROOT = -1;
+
+  private final CompactGraph core;
+  private final int[] order;
+  private final ForkJoinPool pool = ForkJoinPool.commonPool();
+
+  // The position of each vertex's parent in the visit order, lowered by whichever parent is first
+  private final AtomicIntegerArray parents;
+  // The position of each vertex in the visit order, or -1 if it has not been visited
+  private final int[] positions;
+  private final int[] visitOrder;
+  private int visitedCount;
+  private long unvisitedInEdges;
+
+  /**
+   * Constructor for ParallelBreadthFirstSearch.
+   *
+   * @param core the rows of the graph, each sorted by the vertex order.
+   * @param order every vertex id, in sorted order.
+   */
+  ParallelBreadthFirstSearch(CompactGraph core, int[] order) {
+    this.core = core;
+    this.order = order;
+    int vertexCount = core.vertexCount();
+    parents = new AtomicIntegerArray(vertexCount);
+    positions = new int[vertexCount];
+    visitOrder = new int[vertexCount];
+    for (int vertex = 0; vertex < vertexCount; vertex++) {
+      parents.set(vertex, UNVISITED);
+    }
+    Arrays.fill(positions, -1);
+    unvisitedInEdges = core.edgeCount();
+  }
+
+  /**
+   * Searches the graph from each root in turn, skipping roots that have already been visited.
+   *
+   * @param roots the root vertex ids, in the order they are searched from.
+   * @return the vertex ids in the order they were visited.
+   */
+  int[] search(List<Integer> roots) {
+    for (int root : roots) {
+      if (parents.get(root) != UNVISITED) {
+        continue;
+      }
+      parents.set(root, ROOT);
+      int levelStart = visitedCount;
+      long levelEdges = visit(root);
+      // Expanding one level at a time until the search runs out of verticies
+      while (levelStart < visitedCount) {
+        int levelEnd = visitedCount;
+        long bottomUpWork = (long) core.vertexCount() + unvisitedInEdges;
+        if (2 * levelEdges > bottomUpWork) {
+          bottomUp(levelStart, levelEnd);
+        } else if (levelEdges >= PARALLEL_LEVEL_EDGES) {
+          topDown(levelStart, levelEnd, levelEdges);
+        } else {
+          topDownSequential(levelStart, levelEnd);
+        }
+        levelEdges = 0;
+        for (int i = levelEnd; i < visitedCount; i++) {
+          int vertex = visitOrder[i];
+          levelEdges += core.outEnd(vertex) - core.outStart(vertex);
+        }
+        levelStart = levelEnd;
+      }
+    }
+    return Arrays.copyOf(visitOrder, visitedCount);
+  }
+
+  /**
+   * Appends a vertex to the visit order.
+   *
+   * @param vertex the vertex id.
+   * @return the number of edges out of the vertex.
+   */
+  private long visit(int vertex) {
+    positions[vertex] = visitedCount;
+    visitOrder[visitedCount++] = vertex;
+    unvisitedInEdges -= core.inEnd(vertex) - core.inStart(vertex);
+    return core.outEnd(vertex) - core.outStart(vertex);
+  }
+
+  /**
+   * Expands a level on the calling thread, the same way as the sequential search.
+   *
+   * @param levelStart the position of the first vertex of the level.
+   * @param levelEnd one past the position of the last vertex of the level.
+   */
+  private void topDownSequential(int levelStart, int levelEnd) {
+    for (int i = levelStart; i < levelEnd; i++) {
+      int current = visitOrder[i];
+      for (int e = core.outStart(current); e < core.outEnd(current); e++) {
+        int destination = core.target(e);
+        if (parents.get(destination) == UNVISITED) {
+          parents.set(destination, i);
+          visit(destination);
+        }
+      }
+    }
+  }
+
+  /**
+   * Expands a level from the edges out of it, in parallel chunks of the level.
+   *
+   * @param levelStart the position of the first vertex of the level.
+   * @param levelEnd one past the position of the last vertex of the level.
+   * @param levelEdges the number of edges out of the level.
+   */
+  private void topDown(int levelStart, int levelEnd, long levelEdges) {
+    // Cutting the level into chunks with about the same number of edges
+    long chunkEdges = Math.max(1, levelEdges / ((long) pool.getParallelism() * CHUNKS_PER_WORKER));
+    int[] bounds = new int[levelEnd - levelStart + 1];
+    int chunks = 0;
+    bounds[0] = levelStart;
+    long edges = 0;
+    for (int i = levelStart; i < levelEnd; i++) {
+      int current = visitOrder[i];
+      edges += core.outEnd(current) - core.outStart(current) + 1;
+      if (edges >= chunkEdges || i + 1 == levelEnd) {
+        bounds[++chunks] = i + 1;
+        edges = 0;
+      }
+    }
+
+    // Every unvisited neighbour takes the earliest parent that reaches it
+    forEachChunk(
+        chunks,
+        chunk -> {
+          for (int i = bounds[chunk]; i < bounds[chunk + 1]; i++) {
+            int current = visitOrder[i];
+            for (int e = core.outStart(current); e < core.outEnd(current); e++) {
+              claim(core.target(e), i);
+            }
+          }
+        });
+
+    // Walking the rows again, each chunk keeps the neighbours it won in row order
+    int[][] found = new int[chunks][];
+    int[] foundCounts = new int[chunks];
+    forEachChunk(
+        chunks,
+        chunk -> {
+          int size = 0;
+          for (int i = bounds[chunk]; i < bounds[chunk + 1]; i++) {
+            size += core.outEnd(visitOrder[i]) - core.outStart(visitOrder[i]);
+          }
+          int[] won = new int[size];
+          int count = 0;
+          for (int i = bounds[chunk]; i < bounds[chunk + 1]; i++) {
+            int current = visitOrder[i];
+            for (int e = core.outStart(current); e < core.outEnd(current); e++) {
+              int destination = core.target(e);
+              if (parents.get(destination) == i) {
+                won[count++] = destination;
+              }
+            }
+          }
+          found[chunk] = won;
+          foundCounts[chunk] = count;
+        });
+    for (int chunk = 0; chunk < chunks; chunk++) {
+      for (int i = 0; i < foundCounts[chunk]; i++) {
+        visit(found[chunk][i]);
+      }
+    }
+  }
+
+  /**
+   * Lowers the parent of a vertex, if it has not been visited and the parent is earlier.
+   *
+   * @param vertex the vertex id.
+   * @param parent the position of the parent in the visit order.
+   */
+  private void claim(int vertex, int parent) {
+    // Verticies visited in earlier levels always hold an earlier parent, so they are never taken
+    int current = parents.get(vertex);
+    while (parent < current && !parents.compareAndSet(vertex, current, parent)) {
+      current = parents.get(vertex);
+    }
+  }
+
+  /**
+   * Expands a level from the edges into the verticies not yet visited, in parallel chunks of the
+   * vertex order.
+   *
+   * @param levelStart the position of the first vertex of the level.
+   * @param levelEnd one past the position of the last vertex of the level.
+   */
+  private void bottomUp(int levelStart, int levelEnd) {
+    int vertexCount = order.length;
+    int chunks = Math.min(vertexCount, pool.getParallelism() * CHUNKS_PER_WORKER);
+    int[][] found = new int[chunks][];
+    int[] foundCounts = new int[chunks];
+
+    // Each unvisited vertex finds its earliest parent in the level, in vertex order
+    forEachChunk(
+        chunks,
+        chunk -> {
+          int start = (int) ((long) vertexCount * chunk / chunks);
+          int end = (int) ((long) vertexCount * (chunk + 1) / chunks);
+          int[] won = new int[end - start];
+          int count = 0;
+          for (int rank = start; rank < end; rank++) {
+            int vertex = order[rank];
+            if (parents.get(vertex) != UNVISITED) {
+              continue;
+            }
+            int parent = UNVISITED;
+            for (int e = core.inStart(vertex); e < core.inEnd(vertex); e++) {
+              int position = positions[core.source(e)];
+              if (position >= levelStart && position < parent) {
+                parent = position;
+              }
+            }
+            if (parent != UNVISITED) {
+              parents.set(vertex, parent);
+              won[count++] = vertex;
+            }
+          }
+          found[chunk] = won;
+          foundCounts[chunk] = count;
+        });
+
+    // Sorting the new verticies by parent, keeping the vertex order within each parent, which is
+    // the order of the parent's row
+    int[] offsets = new int[levelEnd - levelStart + 1];
+    for (int chunk = 0; chunk < chunks; chunk++) {
+      for (int i = 0; i < foundCounts[chunk]; i++) {
+        offsets[parents.get(found[chunk][i]) - levelStart + 1]++;
+      }
+    }
+    for (int i = 1; i < offsets.length; i++) {
+      offsets[i] += offsets[i - 1];
+    }
+    int[] level = new int[offsets[offsets.length - 1]];
+    for (int chunk = 0; chunk < chunks; chunk++) {
+      for (int i = 0; i < foundCounts[chunk]; i++) {
+        int vertex = found[chunk][i];
+        level[offsets[parents.get(vertex) - levelStart]++] = vertex;
+      }
+    }
+    for (int vertex : level) {
+      visit(vertex);
+    }
+  }
+
+  /**
+   * Runs a task on every chunk of a level across the pool, and waits for them all to finish.
+   *
+   * @param chunks the number of chunks.
+   * @param task the task, given the index of each chunk.
+   */
+  private void forEachChunk(int chunks, IntConsumer task) {
+    pool.invoke(new Chunks(0, chunks, task));
+  }
+
+  /** A range of chunks, split in half until each chunk runs on its own. */
+  private static final class Chunks extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int start;
+    private final int end;
+    private final transient IntConsumer task;
+
+    /**
+     * Constructor for Chunks.
+     *
+     * @param start the index of the first chunk.
+     * @param end one past the index of the last chunk.
+     * @param task the task to run on each chunk.
+     */
+    Chunks(int start, int end, IntConsumer task) {
+      this.start = start;
+      this.end = end;
+      this.task = task;
+    }
+
+    @Override
+    protected void compute() {
+      if (end - start == 1) {
+        task.accept(start);
+        return;
+      }
+      int middle = (start + end) >>> 1;
+      invokeAll(new Chunks(start, middle, task), new Chunks(middle, end, task));
+    }
+  }
+}
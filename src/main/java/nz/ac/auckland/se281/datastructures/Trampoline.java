@@ -0,0 +1,29 @@
+package nz.ac.auckland.se281.datastructures;
+
+/**
+ * A step of a recursive computation that returns its recursive call instead of making it.
+ *
+ * <p>Running the steps one after another in a loop gives the same result as the recursion, but
+ * keeps the native stack at a constant depth however deep the recursion goes.
+ */
+@FunctionalInterface
+interface Trampoline {
+
+  /**
+   * Performs this step of the computation.
+   *
+   * @return the next step, or null if the computation is finished.
+   */
+  Trampoline bounce();
+
+  /**
+   * Runs a computation to completion, starting from the given step.
+   *
+   * @param step the first step, or null if there is nothing to run.
+   */
+  static void run(Trampoline step) {
+    while (step != null) {
+      step = step.bounce();
+    }
+  }
+}
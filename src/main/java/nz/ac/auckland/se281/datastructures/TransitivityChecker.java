@@ -0,0 +1,128 @@
+package nz.ac.auckland.se281.datastructures;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Checks if a graph is transitive by testing, for every edge (u, v), that the successors of v are
+ * a subset of the successors of u.
+ *
+ * <p>The successors of u are held in a scratch bitset row while its edges are checked. Verticies
+ * with more successors than there are words in a row also keep their own bitset row, so they are
+ * compared a whole word at a time; every other vertex is compared by probing its few successors.
+ * This keeps the extra memory to at most 8 bytes per edge. A checker given a stop flag gives up
+ * once the flag is set.
+ */
+class TransitivityChecker {
+
+  private final CompactGraph core;
+  private final int words;
+  private final long[][] denseRows;
+  private final AtomicBoolean stop;
+
+  /**
+   * Constructor for TransitivityChecker, builds the bitset rows of the verticies with many
+   * successors.
+   *
+   * @param core the graph to check.
+   */
+  TransitivityChecker(CompactGraph core) {
+    this(core, new AtomicBoolean());
+  }
+
+  /**
+   * Constructor for TransitivityChecker, builds the bitset rows of the verticies with many
+   * successors, giving up once a stop flag is set.
+   *
+   * @param core the graph to check.
+   * @param stop the flag that gives up on the check once it is set, such as by another check.
+   * @throws CancellationException if the flag is set while the rows are built.
+   */
+  TransitivityChecker(CompactGraph core, AtomicBoolean stop) {
+    this.core = core;
+    this.stop = stop;
+    words = (core.vertexCount() + 63) >>> 6;
+    denseRows = new long[core.vertexCount()][];
+    for (int vertex = 0; vertex < core.vertexCount(); vertex++) {
+      checkStopped();
+      if (core.outEnd(vertex) - core.outStart(vertex) > words) {
+        long[] row = new long[words];
+        for (int i = core.outStart(vertex); i < core.outEnd(vertex); i++) {
+          int target = core.target(i);
+          row[target >>> 6] |= 1L << target;
+        }
+        denseRows[vertex] = row;
+      }
+    }
+  }
+
+  /**
+   * Finds a path of two edges u -> v -> w that has no edge u -> w, stopping at the first one.
+   *
+   * @return the ids of u, v and w, or null if the graph is transitive.
+   * @throws CancellationException if the flag is set before the search finds an answer.
+   */
+  int[] findViolation() {
+    long[] row = new long[words];
+    for (int source = 0; source < core.vertexCount(); source++) {
+      checkStopped();
+      // Filling the scratch row with the successors of the source
+      for (int i = core.outStart(source); i < core.outEnd(source); i++) {
+        int target = core.target(i);
+        row[target >>> 6] |= 1L << target;
+      }
+      for (int i = core.outStart(source); i < core.outEnd(source); i++) {
+        int middle = core.target(i);
+        int missing = findMissing(row, middle);
+        if (missing >= 0) {
+          return new int[] {source, middle, missing};
+        }
+      }
+      // Clearing only the words that were set, so each source costs O(out degree)
+      for (int i = core.outStart(source); i < core.outEnd(source); i++) {
+        row[core.target(i) >>> 6] = 0;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Gives up on the check if the stop flag has been set.
+   *
+   * @throws CancellationException if the flag has been set.
+   */
+  private void checkStopped() {
+    if (stop.get()) {
+      throw new CancellationException("the check was stopped");
+    }
+  }
+
+  /**
+   * Finds a successor of a vertex that is not set in the given row.
+   *
+   * @param row the bitset row of successors that must contain every successor of the vertex.
+   * @param vertex the vertex whose successors are checked.
+   * @return the id of a successor missing from the row, or -1 if the row contains them all.
+   */
+  private int findMissing(long[] row, int vertex) {
+    long[] denseRow = denseRows[vertex];
+    if (denseRow != null) {
+      // Comparing the rows a word at a time
+      for (int word = 0; word < words; word++) {
+        long missing = denseRow[word] & ~row[word];
+        if (missing != 0) {
+          return (word << 6) + Long.numberOfTrailingZeros(missing);
+        }
+      }
+      return -1;
+    }
+    // Probing each successor, as there are fewer of them than words in a row
+    for (int i = core.outStart(vertex); i < core.outEnd(vertex); i++) {
+      int target = core.target(i);
+      if ((row[target >>> 6] & (1L << target)) == 0) {
+        return target;
+      }
+    }
+    return -1;
+  }
+}
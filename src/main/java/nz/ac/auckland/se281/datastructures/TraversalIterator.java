@@ -0,0 +1,79 @@
+package nz.ac.auckland.se281.datastructures;
+
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * An iterator over the verticies of a graph in the order a search visits them, which only does the
+ * work of the search as each vertex is asked for.
+ *
+ * <p>The search starts from each root in turn, and only keeps its frontier and the set of visited
+ * ids between calls. Subclasses decide the order by finding the next vertex to visit.
+ *
+ * @param <T> the type of each vertex.
+ */
+abstract class TraversalIterator<T> implements Iterator<T> {
+
+  protected final CompactGraph core;
+  protected final BitSet visited;
+  private final List<T> verticies;
+  private final List<Integer> roots;
+  private int nextRoot;
+  private int next = -1;
+
+  /**
+   * Constructor for TraversalIterator.
+   *
+   * @param core the rows of the graph.
+   * @param verticies every vertex, indexed by its id.
+   * @param roots the ids of the roots, in the order the search starts from them.
+   */
+  TraversalIterator(CompactGraph core, List<T> verticies, List<Integer> roots) {
+    this.core = core;
+    this.verticies = verticies;
+    this.roots = roots;
+    this.visited = new BitSet(core.vertexCount());
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (next < 0) {
+      next = advance();
+    }
+    return next >= 0;
+  }
+
+  @Override
+  public T next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException("The search has visited every vertex");
+    }
+    int vertex = next;
+    next = -1;
+    return verticies.get(vertex);
+  }
+
+  /**
+   * Gets the next root that has not been visited yet.
+   *
+   * @return the root id, or -1 if every root has been visited.
+   */
+  protected int nextUnvisitedRoot() {
+    while (nextRoot < roots.size()) {
+      int root = roots.get(nextRoot++);
+      if (!visited.get(root)) {
+        return root;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Runs the search until it visits another vertex.
+   *
+   * @return the id of the vertex visited, or -1 if the search is finished.
+   */
+  protected abstract int advance();
+}
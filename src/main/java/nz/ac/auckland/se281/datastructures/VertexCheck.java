@@ -0,0 +1,159 @@
+package nz.ac.auckland.se281.datastructures;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Checks that a condition holds for every vertex of a graph, splitting the verticies into ranges
+ * across the common fork join pool when the graph is large.
+ *
+ * <p>Every range shares one flag, so the first vertex that fails stops all the other ranges too.
+ * A check can also be given a stop flag shared with other work, which gives up on the check once it
+ * is set. Graphs with fewer than {@link #PARALLEL_EDGES} edges are checked on the calling thread,
+ * where handing out the work would cost more than it saves.
+ */
+class VertexCheck {
+
+  /** The fewest edges a graph needs before it is checked in parallel. */
+  static final int PARALLEL_EDGES = 1 << 16;
+
+  // Splitting into several ranges per worker, so a worker stuck on busy verticies gets help
+  private static final int RANGES_PER_WORKER = 8;
+  private static final int MIN_RANGE_WORK = 1 << 12;
+
+  /** A condition on a single vertex. */
+  @FunctionalInterface
+  interface Condition {
+    /**
+     * Tests the condition on a vertex.
+     *
+     * @param vertex the vertex id.
+     * @return true if the condition holds for the vertex, false otherwise.
+     */
+    boolean holds(int vertex);
+  }
+
+  private final CompactGraph core;
+  private final Condition condition;
+  private final int rangeWork;
+  private final AtomicBoolean stop;
+  private volatile boolean failed;
+  private volatile boolean stopped;
+
+  /**
+   * Constructor for VertexCheck.
+   *
+   * @param core the rows of the graph.
+   * @param condition the condition every vertex must meet.
+   * @param rangeWork the most verticies and edges a range is left with before it is checked.
+   * @param stop the flag that gives up on the check once it is set.
+   */
+  private VertexCheck(CompactGraph core, Condition condition, int rangeWork, AtomicBoolean stop) {
+    this.core = core;
+    this.condition = condition;
+    this.rangeWork = rangeWork;
+    this.stop = stop;
+  }
+
+  /**
+   * Checks if a condition holds for every vertex of a graph.
+   *
+   * @param core the rows of the graph.
+   * @param condition the condition every vertex must meet.
+   * @return true if the condition holds for every vertex, false otherwise.
+   */
+  static boolean forAll(CompactGraph core, Condition condition) {
+    return forAll(core, condition, new AtomicBoolean());
+  }
+
+  /**
+   * Checks if a condition holds for every vertex of a graph, giving up once a stop flag is set.
+   *
+   * @param core the rows of the graph.
+   * @param condition the condition every vertex must meet.
+   * @param stop the flag that gives up on the check once it is set, such as by another check.
+   * @return true if the condition holds for every vertex, false otherwise.
+   * @throws CancellationException if the flag was set before the check found an answer.
+   */
+  static boolean forAll(CompactGraph core, Condition condition, AtomicBoolean stop) {
+    int vertexCount = core.vertexCount();
+    if (core.edgeCount() < PARALLEL_EDGES) {
+      for (int vertex = 0; vertex < vertexCount; vertex++) {
+        if (stop.get()) {
+          throw new CancellationException("the check was stopped");
+        }
+        if (!condition.holds(vertex)) {
+          return false;
+        }
+      }
+      return true;
+    }
+    ForkJoinPool pool = ForkJoinPool.commonPool();
+    long work = (long) vertexCount + core.edgeCount();
+    int rangeWork =
+        (int) Math.max(MIN_RANGE_WORK, work / ((long) pool.getParallelism() * RANGES_PER_WORKER));
+    VertexCheck check = new VertexCheck(core, condition, rangeWork, stop);
+    pool.invoke(check.new Range(0, vertexCount));
+    if (check.failed) {
+      return false;
+    }
+    if (check.stopped) {
+      throw new CancellationException("the check was stopped");
+    }
+    return true;
+  }
+
+  /**
+   * Checks if the range should give up, either as a vertex has failed or the check was stopped.
+   *
+   * @return true if the range should give up, false otherwise.
+   */
+  private boolean done() {
+    if (stop.get()) {
+      // Noting that some verticies were skipped, so holding for the rest proves nothing
+      stopped = true;
+    }
+    return failed || stopped;
+  }
+
+  /** A range of vertex ids, split in half until it is small enough to check. */
+  private final class Range extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int start;
+    private final int end;
+
+    /**
+     * Constructor for Range.
+     *
+     * @param start the first vertex id in the range.
+     * @param end one past the last vertex id in the range.
+     */
+    Range(int start, int end) {
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    protected void compute() {
+      if (done()) {
+        return;
+      }
+      // Weighing each range by its edges as well, so a few busy verticies are split apart
+      long work = (long) (end - start) + core.outEnd(end - 1) - core.outStart(start);
+      if (end - start > 1 && work > rangeWork) {
+        int middle = (start + end) >>> 1;
+        invokeAll(new Range(start, middle), new Range(middle, end));
+        return;
+      }
+      for (int vertex = start; vertex < end && !done(); vertex++) {
+        if (!condition.holds(vertex)) {
+          failed = true;
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package nz.ac.auckland.se281.datastructures;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The total order of a graph's verticies, computed once when the graph is loaded.
+ *
+ * <p>Verticies are ordered numerically when every label is an integer, and by their natural
+ * ordering ({@link Comparable#compareTo}) otherwise. Each label is parsed at most once, so sorting
+ * never parses or allocates strings per comparison.
+ */
+class VertexOrder {
+
+  private final int[] order;
+
+  /**
+   * Constructor for VertexOrder, sorts the vertex ids by their labels.
+   *
+   * @param <T> the type of each vertex.
+   * @param verticies every vertex, indexed by its id.
+   */
+  <T extends Comparable<T>> VertexOrder(List<T> verticies) {
+    int vertexCount = verticies.size();
+    long[] keys = numericKeys(verticies);
+
+    Integer[] sorted = new Integer[vertexCount];
+    for (int id = 0; id < vertexCount; id++) {
+      sorted[id] = id;
+    }
+    if (keys != null) {
+      // Breaking ties between labels such as "1" and "01" with the natural ordering
+      Arrays.sort(
+          sorted,
+          (a, b) -> {
+            int byKey = Long.compare(keys[a], keys[b]);
+            return byKey != 0 ? byKey : verticies.get(a).compareTo(verticies.get(b));
+          });
+    } else {
+      Arrays.sort(sorted, (a, b) -> verticies.get(a).compareTo(verticies.get(b)));
+    }
+
+    order = new int[vertexCount];
+    for (int i = 0; i < vertexCount; i++) {
+      order[i] = sorted[i];
+    }
+  }
+
+  /**
+   * Parses every label as an integer.
+   *
+   * @param verticies every vertex, indexed by its id.
+   * @return the integer value of every label, or null if any label is not an integer.
+   */
+  private static long[] numericKeys(List<?> verticies) {
+    long[] keys = new long[verticies.size()];
+    for (int id = 0; id < keys.length; id++) {
+      try {
+        keys[id] = Long.parseLong(verticies.get(id).toString());
+      } catch (NumberFormatException e) {
+        return null;
+      }
+    }
+    return keys;
+  }
+
+  /**
+   * Gets every vertex id in sorted order.
+   *
+   * @return the vertex ids, smallest first.
+   */
+  int[] order() {
+    return order;
+  }
+}
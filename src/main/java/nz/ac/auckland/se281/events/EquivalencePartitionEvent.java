@@ -0,0 +1,42 @@
+package nz.ac.auckland.se281.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** The equivalence classes of a graph being computed, recorded by Java Flight Recorder. */
+@Name("nz.ac.auckland.se281.EquivalencePartition")
+@Label("Equivalence Partition")
+@Category({"Graph Calculator", "Analysis"})
+@Description("The vertices of a graph partitioned into equivalence classes")
+@StackTrace(false)
+public class EquivalencePartitionEvent extends Event {
+  @Label("Vertices")
+  private int vertices;
+
+  @Label("Edges")
+  private int edges;
+
+  @Label("Classes")
+  private int classes;
+
+  /**
+   * Fills in the event and commits it, if it is enabled and over its threshold. Call {@link
+   * #begin()} before partitioning.
+   *
+   * @param vertices The number of vertices in the graph.
+   * @param edges The number of edges in the graph.
+   * @param classes The number of equivalence classes found.
+   */
+  public void record(final int vertices, final int edges, final int classes) {
+    if (shouldCommit()) {
+      this.vertices = vertices;
+      this.edges = edges;
+      this.classes = classes;
+      commit();
+    }
+  }
+}
@@ -0,0 +1,37 @@
+package nz.ac.auckland.se281.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** The indexes of a graph being built from a graph builder, recorded by Java Flight Recorder. */
+@Name("nz.ac.auckland.se281.GraphBuild")
+@Label("Graph Build")
+@Category({"Graph Calculator", "Load"})
+@Description("The vertex order and adjacency rows of a graph built from a graph builder")
+@StackTrace(false)
+public class GraphBuildEvent extends Event {
+  @Label("Vertices")
+  private int vertices;
+
+  @Label("Edges")
+  private int edges;
+
+  /**
+   * Fills in the event and commits it, if it is enabled and over its threshold. Call {@link
+   * #begin()} before building.
+   *
+   * @param vertices The number of vertices in the graph.
+   * @param edges The number of edges in the graph.
+   */
+  public void record(final int vertices, final int edges) {
+    if (shouldCommit()) {
+      this.vertices = vertices;
+      this.edges = edges;
+      commit();
+    }
+  }
+}
@@ -0,0 +1,59 @@
+package nz.ac.auckland.se281.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** A graph file being parsed into a graph builder, recorded by Java Flight Recorder. */
+@Name("nz.ac.auckland.se281.GraphParse")
+@Label("Graph Parse")
+@Category({"Graph Calculator", "Load"})
+@Description("A graph file parsed into a graph builder")
+@StackTrace(false)
+public class GraphParseEvent extends Event {
+  @Label("File")
+  private String file;
+
+  @Label("Format")
+  private String format;
+
+  @Label("Size")
+  @DataAmount
+  private long bytes;
+
+  @Label("Vertices")
+  private int vertices;
+
+  @Label("Edges")
+  private int edges;
+
+  /**
+   * Fills in the event and commits it, if it is enabled and over its threshold. Call {@link
+   * #begin()} before parsing.
+   *
+   * @param file The name of the file.
+   * @param format The format of the file.
+   * @param bytes The size of the file in bytes.
+   * @param vertices The number of vertices parsed.
+   * @param edges The number of distinct edges parsed.
+   */
+  public void record(
+      final String file,
+      final String format,
+      final long bytes,
+      final int vertices,
+      final int edges) {
+    if (shouldCommit()) {
+      this.file = file;
+      this.format = format;
+      this.bytes = bytes;
+      this.vertices = vertices;
+      this.edges = edges;
+      commit();
+    }
+  }
+}
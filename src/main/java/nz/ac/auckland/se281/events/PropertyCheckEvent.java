@@ -0,0 +1,48 @@
+package nz.ac.auckland.se281.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** A property of a graph being computed, recorded by Java Flight Recorder. */
+@Name("nz.ac.auckland.se281.PropertyCheck")
+@Label("Property Check")
+@Category({"Graph Calculator", "Analysis"})
+@Description("A property of a graph computed for the first time, such as if it is transitive")
+@StackTrace(false)
+public class PropertyCheckEvent extends Event {
+  @Label("Property")
+  private String property;
+
+  @Label("Vertices")
+  private int vertices;
+
+  @Label("Edges")
+  private int edges;
+
+  @Label("Result")
+  private boolean result;
+
+  /**
+   * Fills in the event and commits it, if it is enabled and over its threshold. Call {@link
+   * #begin()} before checking the property.
+   *
+   * @param property The name of the property.
+   * @param vertices The number of vertices in the graph.
+   * @param edges The number of edges in the graph.
+   * @param result If the graph has the property.
+   */
+  public void record(
+      final String property, final int vertices, final int edges, final boolean result) {
+    if (shouldCommit()) {
+      this.property = property;
+      this.vertices = vertices;
+      this.edges = edges;
+      this.result = result;
+      commit();
+    }
+  }
+}
@@ -0,0 +1,48 @@
+package nz.ac.auckland.se281.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** A search of every vertex of a graph, recorded by Java Flight Recorder. */
+@Name("nz.ac.auckland.se281.Traversal")
+@Label("Traversal")
+@Category({"Graph Calculator", "Analysis"})
+@Description("A breadth or depth first search of a graph from its roots")
+@StackTrace(false)
+public class TraversalEvent extends Event {
+  @Label("Search")
+  private String search;
+
+  @Label("Vertices")
+  private int vertices;
+
+  @Label("Edges")
+  private int edges;
+
+  @Label("Visited")
+  private int visited;
+
+  /**
+   * Fills in the event and commits it, if it is enabled and over its threshold. Call {@link
+   * #begin()} before searching.
+   *
+   * @param search The kind of search, such as "iterative breadth first".
+   * @param vertices The number of vertices in the graph.
+   * @param edges The number of edges in the graph.
+   * @param visited The number of vertices the search visited.
+   */
+  public void record(
+      final String search, final int vertices, final int edges, final int visited) {
+    if (shouldCommit()) {
+      this.search = search;
+      this.vertices = vertices;
+      this.edges = edges;
+      this.visited = visited;
+      commit();
+    }
+  }
+}
@@ -0,0 +1,80 @@
+package nz.ac.auckland.se281;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GraphCacheTest {
+  private Path file;
+
+  private FileTime modified;
+
+  private int loads;
+
+  @Before
+  public void setUp() throws Exception {
+    file = Files.createTempFile("graph-cache", ".txt");
+    Files.writeString(file, "0 1\n");
+    modified = Files.getLastModifiedTime(file);
+    loads = 0;
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    Files.deleteIfExists(file);
+  }
+
+  /**
+   * Loads the graph of c.txt, counting how many times the cache had to load it.
+   *
+   * @return The graph calculator.
+   * @throws IOException If the graph could not be loaded.
+   */
+  private GraphCalculator load() throws IOException {
+    loads++;
+    return new GraphCalculator("c.txt");
+  }
+
+  @Test
+  public void TY_CACHE_reopen_hits() throws Exception {
+    final GraphCache cache = new GraphCache(Long.MAX_VALUE);
+    final GraphCalculator first = cache.open(file, this::load);
+
+    Assert.assertSame(first, cache.open(file, this::load));
+    Assert.assertEquals(1, loads);
+  }
+
+  @Test
+  public void TY_CACHE_graph_over_budget_is_not_evicted_as_it_opens() throws Exception {
+    final GraphCache cache = new GraphCache(1);
+    final GraphCalculator first = cache.open(file, this::load);
+
+    Assert.assertSame(first, cache.open(file, this::load));
+    Assert.assertEquals(1, loads);
+  }
+
+  @Test
+  public void TY_CACHE_file_changed_while_loading_is_not_cached() throws Exception {
+    final GraphCache cache = new GraphCache(Long.MAX_VALUE);
+
+    cache.open(
+        file,
+        () -> {
+          // The file changes after the cache looked at it, but before the graph is read.
+          Files.writeString(file, "1 0\n");
+          Files.setLastModifiedTime(file, FileTime.fromMillis(modified.toMillis() + 2000));
+          return load();
+        });
+
+    // Putting the old size and time back, so only a graph cached under them could be hit.
+    Files.setLastModifiedTime(file, modified);
+    cache.open(file, this::load);
+
+    Assert.assertEquals(2, loads);
+  }
+}
@@ -2,6 +2,17 @@ package nz.ac.auckland.se281;
 
 import static nz.ac.auckland.se281.Command.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Scanner;
+import java.util.regex.Pattern;
+import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
@@ -519,5 +530,461 @@ public class MainTest {
       assertContains("Successfully opened graph from file i.txt");
       assertContains("[0, 1, 2, 3, 10, 11, 12, 13, 20, 21, 100, 101]");
     }
+
+    @Test
+    public void TY_C_list_equivalence_classes() throws Exception {
+      runCommands(OPEN_FILE, "c.txt", LIST_EQUIVALENCE_CLASSES);
+      assertContains("Successfully opened graph from file c.txt");
+      assertContains("[[0], [1, 2, 3]]");
+    }
+
+    @Test
+    public void TY_E_list_equivalence_classes() throws Exception {
+      runCommands(OPEN_FILE, "e.txt", LIST_EQUIVALENCE_CLASSES);
+      assertContains("Successfully opened graph from file e.txt");
+      assertContains("[]");
+      assertDoesNotContain("[[");
+    }
+
+    @Test
+    public void TY_K_non_numeric_roots() throws Exception {
+      runCommands(OPEN_FILE, "k.txt", LIST_ROOT_VERTICIES);
+      assertContains("Successfully opened graph from file k.txt");
+      assertContains("[e]");
+    }
+
+    @Test
+    public void TY_K_non_numeric_IBFS() throws Exception {
+      runCommands(OPEN_FILE, "k.txt", GRAPH_SEARCH_IBFS);
+      assertContains("Successfully opened graph from file k.txt");
+      assertContains("[e, a, f, b, c, d]");
+    }
+
+    @Test
+    public void TY_M_dot_constructs_vertices_and_edges() throws Exception {
+      runCommands(OPEN_FILE, "m.txt", LIST_VERTICIES_EDGES);
+      assertContains("Successfully opened graph from file m.txt");
+      assertContains("\"x y\" -> b");
+      assertContains("b -> \"x y\"");
+      assertContains("b -> c");
+      assertContains("c -> c");
+      assertContains("e -> f");
+      assertContains("f -> e");
+      assertContains("\td");
+      assertDoesNotContain("rankdir");
+      assertDoesNotContain("shape");
+      assertDoesNotContain("weight");
+      assertDoesNotContain("cluster_0");
+      assertDoesNotContain("\tn");
+    }
+
+    @Test
+    public void TY_M_dot_constructs_roots_and_search() throws Exception {
+      runCommands(OPEN_FILE, "m.txt", LIST_ROOT_VERTICIES, GRAPH_SEARCH_IBFS, CHECK_SYMMETRY);
+      assertContains("[d]");
+      assertContains("The graph is NOT symmetric");
+      assertDoesNotContain("Error");
+    }
+
+    @Test
+    public void TY_N_syntax_error_line_number() throws Exception {
+      runCommands(OPEN_FILE, "n.txt", INFO);
+      assertContains(
+          "Error: file 'n.txt' is not a valid graph (line 5: expected a vertex after the edge"
+              + " operator)");
+      assertContains("Error: no valid file open");
+    }
+
+    @Test
+    public void TY_C_snapshot_round_trip() throws Exception {
+      try {
+        runCommands(
+            OPEN_FILE,
+            "c.txt",
+            LIST_EQUIVALENCE_CLASSES,
+            SAVE_SNAPSHOT,
+            "c.snapshot",
+            OPEN_SNAPSHOT,
+            "c.snapshot",
+            INFO,
+            LIST_EQUIVALENCE_CLASSES,
+            LIST_ROOT_VERTICIES);
+        assertContains("Successfully saved snapshot to file c.snapshot");
+        assertContains("Successfully opened graph from file c.snapshot");
+        assertContains("File name: c.txt");
+        assertContains("[[0], [1, 2, 3]]");
+        assertContains("[0, 1]");
+        assertDoesNotContain("Warning");
+      } finally {
+        Files.deleteIfExists(Path.of("testcases", "c.snapshot"));
+      }
+    }
+
+    @Test
+    public void TY_C_snapshot_stale_only_when_source_changes() throws Exception {
+      final Path source = Path.of("testcases", "c-stale.txt");
+      final Path snapshot = Path.of("testcases", "c-stale.snapshot");
+      try {
+        Files.copy(Path.of("testcases", "c.txt"), source);
+        runCommands(OPEN_FILE, "c-stale.txt", SAVE_SNAPSHOT, "c-stale.snapshot");
+        // Touching the source without changing it, which the checksum settles
+        final FileTime saved = Files.getLastModifiedTime(source);
+        Files.setLastModifiedTime(source, FileTime.fromMillis(saved.toMillis() + 2000));
+        runCommands(OPEN_SNAPSHOT, "c-stale.snapshot");
+        assertDoesNotContain("Warning");
+        // Turning the last edge 3 -> 2 into 3 -> 1, so the source keeps its size but not its
+        // contents
+        final byte[] bytes = Files.readAllBytes(source);
+        bytes[bytes.length - 5] = '1';
+        Files.write(source, bytes);
+        Files.setLastModifiedTime(source, FileTime.fromMillis(saved.toMillis() + 4000));
+        runCommands(OPEN_SNAPSHOT, "c-stale.snapshot");
+        assertContains(
+            "Warning: the source of snapshot 'c-stale.snapshot' has changed since it was saved");
+      } finally {
+        Files.deleteIfExists(source);
+        Files.deleteIfExists(snapshot);
+      }
+    }
+
+    @Test
+    public void TY_C_snapshot_corrupt_edges_found_on_first_use() throws Exception {
+      final Path snapshot = Path.of("testcases", "c-corrupt.snapshot");
+      try {
+        runCommands(OPEN_FILE, "c.txt", SAVE_SNAPSHOT, "c-corrupt.snapshot");
+        // Damaging the last edge, which is only read once a command needs the edges
+        final byte[] bytes = Files.readAllBytes(snapshot);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(snapshot, bytes);
+
+        runCommands(OPEN_SNAPSHOT, "c-corrupt.snapshot", INFO, LIST_ROOT_VERTICIES, INFO);
+        assertContains("Successfully opened graph from file c-corrupt.snapshot");
+        assertContains("File name: c.txt");
+        assertContains(
+            "Error: file 'c-corrupt.snapshot' is not a valid snapshot (snapshot is corrupt)");
+        assertContains("Error: no valid file open");
+      } finally {
+        Files.deleteIfExists(snapshot);
+      }
+    }
+
+    @Test
+    public void TY_A_snapshot_not_valid() throws Exception {
+      runCommands(OPEN_SNAPSHOT, "a.txt");
+      assertContains("Error: file 'a.txt' is not a valid snapshot");
+    }
+
+    @Test
+    public void TY_L_edge_list_equivalence() throws Exception {
+      runCommands(OPEN_FILE, "l.txt", CHECK_EQUIVALENCE, LIST_EQUIVALENCE_CLASSES);
+      assertContains("Successfully opened graph from file l.txt");
+      assertContains("The graph is an equivalence relation");
+      assertContains("[[0], [1, 2, 3]]");
+    }
+
+    @Test
+    public void TY_L_edge_list_roots() throws Exception {
+      runCommands(OPEN_FILE, "l.txt", LIST_ROOT_VERTICIES);
+      assertContains("Successfully opened graph from file l.txt");
+      assertContains("[0, 1]");
+    }
+
+    @Test
+    public void TY_O_edge_list_of_keyword_like_verticies() throws Exception {
+      runCommands(OPEN_FILE, "o.txt", LIST_VERTICIES_EDGES, LIST_ROOT_VERTICIES);
+      assertContains("Successfully opened graph from file o.txt");
+      assertContains("graph1 -> graph2");
+      assertContains("strict4 -> graph1");
+      assertContains("[strict4]");
+      assertDoesNotContain("Error");
+    }
+
+    @Test
+    public void TY_P_edge_list_starting_with_keyword() throws Exception {
+      runCommands(OPEN_FILE, "p.txt", LIST_VERTICIES_EDGES);
+      assertContains("Successfully opened graph from file p.txt");
+      assertContains("graph -> node2");
+      assertContains("strict -> graph");
+      assertDoesNotContain("Error");
+    }
+
+    @Test
+    public void TY_C_reopen_cached_file() throws Exception {
+      runCommands(
+          OPEN_FILE,
+          "c.txt",
+          CHECK_EQUIVALENCE,
+          OPEN_FILE,
+          "a.txt",
+          INFO,
+          OPEN_FILE,
+          "c.txt",
+          INFO,
+          LIST_EQUIVALENCE_CLASSES);
+      assertContains("File name: a.txt");
+      assertContains("File name: c.txt");
+      assertContains("[[0], [1, 2, 3]]");
+    }
+
+    @Test
+    public void TY_NONE_load_status_nothing_loading() throws Exception {
+      runCommands(LOAD_STATUS, CANCEL_LOAD);
+      assertContains("No graph is loading in the background");
+      assertDoesNotContain("Error: no valid file open");
+    }
+
+    @Test
+    public void TY_C_open_file_async_keeps_current_graph() throws Exception {
+      runCommands(OPEN_FILE, "a.txt", OPEN_FILE_ASYNC, "c.txt", LIST_ROOT_VERTICIES);
+      assertContains("Successfully opened graph from file a.txt");
+      assertContains("Loading graph from file c.txt in the background");
+    }
+
+    @Test
+    public void TY_C_open_file_async_swaps_in_when_loaded() throws Exception {
+      final String[] commands = {
+        "open-file a.txt", "open-file-async c.txt", "load-status", "info", "exit"
+      };
+      inputs.add(commands);
+
+      // Pausing before each command after the load starts, so the load is done by the next one.
+      new Main(new Scanner(pausedInput(2, 300, commands))).start();
+
+      assertContains("Loading graph from file c.txt in the background");
+      assertContains("Successfully opened graph from file c.txt");
+      assertContains("No graph is loading in the background");
+      assertContains("File name: c.txt");
+      assertDoesNotContain("File name: a.txt");
+    }
+
+    /**
+     * Hands over a script one line at a time, pausing before each line after the first few.
+     *
+     * @param unpaused The number of lines handed over straight away.
+     * @param pauseMillis How long to pause before each later line.
+     * @param lines The lines of the script.
+     * @return The script as an input stream.
+     */
+    private static InputStream pausedInput(
+        final int unpaused, final long pauseMillis, final String... lines) {
+      return new InputStream() {
+        private int next;
+
+        private byte[] line = new byte[0];
+
+        private int position;
+
+        @Override
+        public int read() throws IOException {
+          final byte[] single = new byte[1];
+          return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(final byte[] buffer, final int offset, final int length)
+            throws IOException {
+          if (position == line.length) {
+            if (next == lines.length) {
+              return -1;
+            }
+            if (next >= unpaused) {
+              try {
+                Thread.sleep(pauseMillis);
+              } catch (InterruptedException e) {
+                throw new InterruptedIOException();
+              }
+            }
+            line = (lines[next++] + NEW_LINE).getBytes(StandardCharsets.UTF_8);
+            position = 0;
+          }
+          // Never more than the rest of one line, so each command runs before the next is read.
+          final int count = Math.min(length, line.length - position);
+          System.arraycopy(line, position, buffer, offset, count);
+          position += count;
+          return count;
+        }
+      };
+    }
+
+    @Test
+    public void TY_C_set_output_to_file() throws Exception {
+      final Path output = Files.createTempFile("results", ".txt");
+      try {
+        runCommands(
+            SET_OUTPUT,
+            output.toString(),
+            OPEN_FILE,
+            "c.txt",
+            LIST_EQUIVALENCE_CLASSES,
+            SET_OUTPUT,
+            "-",
+            LIST_ROOT_VERTICIES);
+        assertContains("Writing results to " + output);
+        assertContains("Writing results to the console");
+        assertContains("[0, 1]");
+        assertDoesNotContain("[[0], [1, 2, 3]]");
+        Assert.assertTrue(Files.readString(output).contains("[[0], [1, 2, 3]]"));
+      } finally {
+        Files.deleteIfExists(output);
+      }
+    }
+
+    @Test
+    public void TY_A_message_arguments_are_not_patterns() throws Exception {
+      runCommands(OPEN_FILE, "a.txt", new String[] {"a$1b"});
+      assertContains(
+          "Error! Command not found! (run 'help' for the list of available commands): \"A$1B\"");
+    }
+
+    @Test
+    public void TY_I_IBFS_limit() throws Exception {
+      runCommands(OPEN_FILE, "i.txt", GRAPH_SEARCH_IBFS, "3", GRAPH_SEARCH_RDFS, "0");
+      assertContains("[0, 1, 2]");
+      assertContains("[]");
+      assertDoesNotContain("[0, 1, 2, 3");
+    }
+
+    @Test
+    public void TY_I_IDFS_limit_past_end() throws Exception {
+      runCommands(OPEN_FILE, "i.txt", GRAPH_SEARCH_IDFS, "100");
+      assertContains("[0, 1, 2, 3, 10, 11, 12, 13, 20, 21, 100, 101]");
+    }
+
+    @Test
+    public void TY_I_search_limit_not_valid() throws Exception {
+      runCommands(OPEN_FILE, "i.txt", GRAPH_SEARCH_IBFS, "-1", GRAPH_SEARCH_IBFS, "1 2");
+      assertContains("Error: '-1' is not a valid limit, expected a whole number of at least 0");
+      assertContains("Expected 0 to 1 arguments for the \"GRAPH_SEARCH_IBFS\" command");
+    }
+
+    @Test
+    public void TY_TESTCASES_analyze_all() throws Exception {
+      runCommands(ANALYZE_ALL, ".", ANALYZE_ALL, "nothere");
+      assertContains("ANTISYMMETRIC");
+      // Matching each cell of the row for c.txt, whatever the column widths are
+      final Pattern row =
+          Pattern.compile(
+              "^c\\.txt\\s+4\\s+10\\s+2\\s+yes\\s+yes\\s+yes\\s+no\\s+yes\\s",
+              Pattern.MULTILINE);
+      Assert.assertTrue(row.matcher(getCaptureOut()).find());
+      assertContains("from directory . in");
+      assertContains("Error: directory 'nothere' not found in `testcases` folder");
+      assertDoesNotContain("Error: no valid file open");
+    }
+
+    @Test
+    public void TY_GENERATED_chain() throws Exception {
+      runCommands(GENERATE, "chain 4 0 1", GRAPH_SEARCH_IBFS, CHECK_ANTISYMMETRY);
+      assertContains("Generated chain graph with 4 vertices and 3 edges");
+      assertContains("[0, 1, 2, 3]");
+      assertContains("The graph is antisymmetric");
+    }
+
+    @Test
+    public void TY_GENERATED_cliques_equivalence() throws Exception {
+      runCommands(GENERATE, "cliques 6 12 1", LIST_EQUIVALENCE_CLASSES);
+      assertContains("[[0, 1], [2, 3], [4, 5]]");
+    }
+
+    @Test
+    public void TY_GENERATED_not_valid() throws Exception {
+      runCommands(
+          GENERATE, "blob 4 0 1", GENERATE, "erdos_renyi 2 5 1", GENERATE, "chain 2000000000 0 1");
+      assertContains("Error: 'blob' is not a graph shape");
+      assertContains("Error: could not generate graph (2 verticies can have at most 4 edges)");
+      assertContains(
+          "Error: could not generate graph (the number of verticies must be from 1 to 16777216)");
+    }
+
+    @Test
+    public void TY_A_metrics_off_by_default() throws Exception {
+      runCommands(METRICS, OPEN_FILE, "a.txt", METRICS);
+      assertContains("Metrics are off (run with -Dgraphcalculator.metrics=true to record them)");
+      assertDoesNotContain("Error: no valid file open");
+      assertDoesNotContain("P50_MS");
+    }
+
+    @Test
+    public void TY_GENERATED_chain_recursive_searches_are_stack_safe() throws Exception {
+      runCommands(GENERATE, "chain 200000 0 1", GRAPH_SEARCH_RBFS, GRAPH_SEARCH_RDFS);
+      assertContains("Generated chain graph with 200000 vertices and 199999 edges");
+      assertDoesNotContain("StackOverflowError");
+      final long completed =
+          Arrays.stream(getCaptureOut().split(NEW_LINE))
+              .filter(line -> line.contains("> [0, 1, 2, ") && line.endsWith(", 199999]"))
+              .count();
+      Assert.assertEquals(2, completed);
+    }
+
+    @Test
+    public void TY_GENERATED_parallel_properties() throws Exception {
+      runCommands(
+          GENERATE,
+          "cliques 1000 100000 1",
+          CHECK_EQUIVALENCE,
+          CHECK_ANTISYMMETRY,
+          GENERATE,
+          "near_transitive_dag 2000 100000 1",
+          CHECK_ANTISYMMETRY,
+          CHECK_SYMMETRY,
+          CHECK_EQUIVALENCE);
+      assertContains("The graph is an equivalence relation");
+      assertContains("The graph is NOT antisymmetric");
+      assertContains("The graph is antisymmetric");
+      assertContains("The graph is NOT symmetric");
+      assertContains("The graph is NOT an equivalence relation");
+    }
+
+    @Test
+    public void TY_GENERATED_stopped_checks_are_not_cached() throws Exception {
+      // Groups of two verticies, so the graph is transitive but fails reflexivity straight away
+      runCommands(
+          GENERATE,
+          "near_transitive_dag 200000 100000 1",
+          CHECK_EQUIVALENCE,
+          CHECK_TRANSITIVITY,
+          CHECK_SYMMETRY);
+      assertContains("The graph is NOT an equivalence relation");
+      assertContains("The graph is transitive");
+      assertContains("The graph is NOT symmetric");
+    }
+
+    @Test
+    public void TY_GENERATED_parallel_bfs_matches_sequential_order() throws Exception {
+      // A root with 128 hubs, each with edges to about two thirds of 1024 leaves, so the hubs are
+      // a dense level and the leaves are found bottom up, most of them by more than one hub
+      final StringBuilder edges = new StringBuilder();
+      for (int hub = 1; hub <= 128; hub++) {
+        edges.append("0 ").append(hub).append(NEW_LINE);
+        for (int leaf = 129; leaf < 129 + 1024; leaf++) {
+          if ((leaf + hub) % 3 != 0) {
+            edges.append(hub).append(' ').append(leaf).append(NEW_LINE);
+          }
+        }
+      }
+      final Path hubs = Files.createTempFile("hubs", ".txt");
+      try {
+        Files.writeString(hubs, edges);
+        runCommands(
+            GENERATE,
+            "power_law 20000 100000 1",
+            GRAPH_SEARCH_IBFS,
+            GRAPH_SEARCH_RBFS,
+            OPEN_FILE,
+            hubs.toString(),
+            GRAPH_SEARCH_IBFS,
+            GRAPH_SEARCH_RBFS);
+      } finally {
+        Files.deleteIfExists(hubs);
+      }
+      String[] searches =
+          Arrays.stream(getCaptureOut().split(NEW_LINE))
+              .filter(line -> line.contains("> ["))
+              .map(line -> line.substring(line.indexOf("> [")))
+              .toArray(String[]::new);
+      Assert.assertEquals(4, searches.length);
+      Assert.assertEquals(searches[1], searches[0]);
+      Assert.assertEquals(searches[3], searches[2]);
+    }
   }
 }
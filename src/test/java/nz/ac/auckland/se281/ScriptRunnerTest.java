@@ -0,0 +1,172 @@
+package nz.ac.auckland.se281;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ScriptRunnerTest {
+  private PrintStream origOut;
+
+  private InputStream origIn;
+
+  private ByteArrayOutputStream captureOut;
+
+  @Before
+  public void setUp() {
+    origOut = System.out;
+    origIn = System.in;
+    captureOut = new ByteArrayOutputStream();
+    System.setOut(new PrintStream(captureOut, true, StandardCharsets.UTF_8));
+  }
+
+  @After
+  public void tearDown() {
+    System.setOut(origOut);
+    System.setIn(origIn);
+  }
+
+  /**
+   * Runs a script through the script runner, which runs its blocks at the same time when it can.
+   *
+   * @param lines The lines of the script.
+   * @return Everything the script printed.
+   */
+  private String runScript(final String... lines) {
+    captureOut.reset();
+    new ScriptRunner(List.of(lines)).run();
+    return captureOut.toString(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Runs commands one after another in a single session, the way a script runs when its blocks
+   * cannot run at the same time.
+   *
+   * @param commands The commands to run.
+   * @return Everything the commands printed.
+   */
+  private static String runSequentially(final String... commands) {
+    final ResultWriter output = ResultWriter.memory();
+    new Main(output, new GraphCache(Long.MAX_VALUE), Metrics.fromProperties())
+        .run(List.of(commands));
+    return output.contents();
+  }
+
+  @Test
+  public void TY_SCRIPT_blocks_match_sequential_run() throws Exception {
+    final String[] script = {
+      "open-file a.txt",
+      "list-root-verticies",
+      "open-file c.txt",
+      "list-equivalence-classes",
+      "graph-search-ibfs",
+      "open-snapshot a.txt",
+      "info",
+      "open-file e.txt",
+      "check-reflexivity",
+      "exit"
+    };
+    final String output = runScript(script);
+
+    Assert.assertEquals(runSequentially(script), output);
+    // Each block's output is printed in script order.
+    final int a = output.indexOf("Successfully opened graph from file a.txt");
+    final int c = output.indexOf("Successfully opened graph from file c.txt");
+    final int e = output.indexOf("Successfully opened graph from file e.txt");
+    Assert.assertTrue(0 <= a && a < c && c < e);
+    Assert.assertTrue(output.contains("[[0], [1, 2, 3]]"));
+  }
+
+  @Test
+  public void TY_SCRIPT_shared_commands_run_in_one_session() throws Exception {
+    final String[] script = {
+      "open-file a.txt", "set-output -", "info", "open-file c.txt", "info", "exit"
+    };
+
+    Assert.assertEquals(runSequentially(script), runScript(script));
+  }
+
+  @Test
+  public void TY_SCRIPT_failed_open_forgets_graph() throws Exception {
+    final String[] script = {
+      "open-file a.txt", "info", "open-file missing.txt", "info", "open-file c.txt", "info"
+    };
+    final String output = runScript(script);
+
+    Assert.assertEquals(runSequentially(script), output);
+    Assert.assertTrue(output.contains("Error: file 'missing.txt' not found in `testcases` folder"));
+    Assert.assertTrue(output.contains("Error: no valid file open"));
+    Assert.assertEquals(
+        output.indexOf("File name: a.txt"), output.lastIndexOf("File name: a.txt"));
+    Assert.assertTrue(output.contains("File name: c.txt"));
+  }
+
+  @Test
+  public void TY_SCRIPT_failed_generate_forgets_graph() throws Exception {
+    final String[] script = {"open-file a.txt", "generate chain 2000000000 0 1", "info"};
+    final String output = runScript(script);
+
+    Assert.assertEquals(runSequentially(script), output);
+    Assert.assertTrue(output.contains("Error: could not generate graph"));
+    Assert.assertTrue(output.contains("Error: no valid file open"));
+    Assert.assertFalse(output.contains("File name: a.txt"));
+  }
+
+  @Test
+  public void TY_SCRIPT_comments_and_blank_lines_are_skipped() throws Exception {
+    final String output =
+        runScript(
+            "# open the first graph",
+            "open-file a.txt",
+            "",
+            "   ",
+            "  # an indented comment",
+            "info",
+            "open-file c.txt",
+            "\t# a comment in the second block",
+            "info");
+
+    Assert.assertEquals(
+        runSequentially("open-file a.txt", "info", "open-file c.txt", "info"), output);
+    Assert.assertFalse(output.contains("Error"));
+  }
+
+  @Test
+  public void TY_SCRIPT_nothing_runs_after_exit() throws Exception {
+    final String output =
+        runScript("open-file a.txt", "info", "exit", "open-file c.txt", "info", "exit");
+
+    Assert.assertEquals(runSequentially("open-file a.txt", "info", "exit"), output);
+    Assert.assertTrue(output.contains("File name: a.txt"));
+    Assert.assertFalse(output.contains("c.txt"));
+  }
+
+  @Test
+  public void TY_SCRIPT_interactive_flag_prompts() throws Exception {
+    System.setIn(new ByteArrayInputStream("open-file a.txt\nexit\n".getBytes()));
+    Main.main(new String[] {"--interactive"});
+    final String output = captureOut.toString(StandardCharsets.UTF_8);
+
+    Assert.assertTrue(output.contains(Main.help()));
+    Assert.assertTrue(
+        output.contains("graph-calculator> Successfully opened graph from file a.txt"));
+  }
+
+  @Test
+  public void TY_SCRIPT_unknown_flag_is_rejected() throws Exception {
+    System.setIn(new ByteArrayInputStream("open-file a.txt\n".getBytes()));
+    Main.main(new String[] {"--interactiv"});
+    final String output = captureOut.toString(StandardCharsets.UTF_8);
+
+    Assert.assertTrue(
+        output.contains(
+            "Error: unknown arguments '--interactiv', expected --script <file> or --interactive"));
+    Assert.assertFalse(output.contains("a.txt"));
+  }
+}